@@ -0,0 +1,59 @@
+package com.jestogp9te.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.persistence.SerializationUtil;
+import com.jestogp9te.util.HashUtil;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Binary block codec next to the Jackson JSON form it replaced
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int transactions;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Block block;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        block = new Block(42, Fixtures.transactions(transactions, 100, 0), HashUtil.ZERO_HASH);
+        binary = SerializationUtil.serialize(block);
+        json = mapper.writeValueAsBytes(block);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return SerializationUtil.serialize(block);
+    }
+
+    @Benchmark
+    public Block binaryDecode() {
+        return SerializationUtil.deserializeBlock(binary);
+    }
+
+    @Benchmark
+    public Block binaryRoundTrip() {
+        return SerializationUtil.deserializeBlock(SerializationUtil.serialize(block));
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return mapper.writeValueAsBytes(block);
+    }
+
+    @Benchmark
+    public Block jsonDecode() throws IOException {
+        return mapper.readValue(json, Block.class);
+    }
+}
@@ -0,0 +1,40 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.blockchain.Transaction;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Shared inputs for the benchmarks
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    // Distinct transactions between a fixed set of accounts, so every hash is unique
+    static List<Transaction> transactions(int count, int accounts, long salt) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Transaction tx = new Transaction("account-" + (i % accounts), "account-" + ((i * 7 + 1) % accounts),
+                    1 + (salt * count + i) * 1e-6);
+            tx.setFee(0.01);
+            transactions.add(tx);
+        }
+        return transactions;
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
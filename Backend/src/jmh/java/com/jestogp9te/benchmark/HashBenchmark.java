@@ -0,0 +1,55 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.util.HashUtil;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+
+    @State(Scope.Thread)
+    public static class Input {
+        // 80 bytes is the size of a block header
+        @Param({"32", "80", "1024", "16384"})
+        public int size;
+
+        private byte[] data;
+        private final MessageDigest digest = HashUtil.newSha256();
+        private final byte[] out = new byte[HashUtil.HASH_LENGTH];
+
+        @Setup
+        public void setup() {
+            data = new byte[size];
+            new Random(size).nextBytes(data);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BlockInput {
+        private final Block block = new Block(1, Fixtures.transactions(100, 50, 0), HashUtil.ZERO_HASH);
+    }
+
+    @Benchmark
+    public byte[] sha256(Input input) {
+        return HashUtil.sha256(input.data);
+    }
+
+    // Reused digest and output buffer, as the mining workers do
+    @Benchmark
+    public byte[] sha256Reused(Input input) {
+        HashUtil.sha256(input.digest, input.data, input.out);
+        return input.out;
+    }
+
+    @Benchmark
+    public String blockCalculateHash(BlockInput input) {
+        return input.block.calculateHash();
+    }
+}
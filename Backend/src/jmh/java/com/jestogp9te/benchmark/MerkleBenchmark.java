@@ -0,0 +1,32 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.blockchain.MerkleTree;
+import com.jestogp9te.blockchain.Transaction;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Transactions cache their hash, so this measures building the tree from ready leaf hashes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MerkleBenchmark {
+
+    @Param({"1", "16", "256", "4096", "16384"})
+    public int transactions;
+
+    private List<Transaction> block;
+
+    @Setup
+    public void setup() {
+        block = Fixtures.transactions(transactions, 1000, 0);
+    }
+
+    @Benchmark
+    public String merkleRoot() {
+        return MerkleTree.getMerkleRoot(block);
+    }
+}
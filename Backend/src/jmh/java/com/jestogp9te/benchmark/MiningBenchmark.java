@@ -0,0 +1,61 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.blockchain.MiningEngine;
+import com.jestogp9te.blockchain.MiningResult;
+import com.jestogp9te.blockchain.Target;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.util.HashUtil;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Time to a valid nonce. Every invocation mines a fresh block against its own target bits, so
+// the result is the average over many independent searches; each step of four zero bits
+// multiplies the expected work by 16. threads=1 is the single-threaded baseline.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MiningBenchmark {
+
+    @State(Scope.Thread)
+    public static class Template {
+        @Param({"8", "12", "16"})
+        public int zeroBits;
+
+        private final List<Transaction> transactions = Fixtures.transactions(10, 10, 0);
+        private Block block;
+        private int index;
+
+        @Setup(Level.Invocation)
+        public void nextBlock() {
+            block = new Block(++index, transactions, HashUtil.ZERO_HASH, Target.fromZeroBits(zeroBits));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Engine {
+        // 0 means one worker per available processor
+        @Param({"1", "0"})
+        public int threads;
+
+        private MiningEngine engine;
+
+        @Setup
+        public void start() {
+            engine = new MiningEngine(threads);
+        }
+
+        @TearDown
+        public void stop() {
+            engine.shutdown();
+        }
+    }
+
+    @Benchmark
+    public MiningResult miningEngine(Template template, Engine engine) {
+        return engine.engine.mine(template.block);
+    }
+}
@@ -0,0 +1,106 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.network.MessageType;
+import com.jestogp9te.network.Peer;
+import com.jestogp9te.network.PeerTransport;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.*;
+
+// Fan-out of 1 KB frames over loopback until every healthy peer has received them. With a
+// stalled peer (accepts, never reads) its queue fills and drops, and the others are unaffected.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeerTransportBenchmark {
+
+    private static final int FRAMES = 1000;
+    private static final int QUEUE_SIZE = 4096;
+    private static final int MAX_FRAME = 1 << 20;
+
+    @Param({"1", "4"})
+    public int peers;
+
+    @Param({"false", "true"})
+    public boolean stalledPeer;
+
+    private final byte[] payload = new byte[1024];
+    private final AtomicLong received = new AtomicLong();
+    private final List<PeerTransport> sinks = new ArrayList<>();
+    private final List<Socket> stalled = new ArrayList<>();
+    private PeerTransport sender;
+    private ServerSocket stalledServer;
+
+    @Setup
+    public void connect() throws IOException, InterruptedException {
+        sender = new PeerTransport(-1, QUEUE_SIZE, MAX_FRAME, (type, data, source) -> { });
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < peers; i++) {
+            PeerTransport sink = new PeerTransport(0, QUEUE_SIZE, MAX_FRAME,
+                    (type, data, source) -> received.incrementAndGet());
+            sinks.add(sink);
+            String id = "sink-" + i;
+            sender.connect(new Peer(id, "127.0.0.1", sink.getLocalPort()));
+            ids.add(id);
+        }
+        if (stalledPeer) {
+            stalledServer = new ServerSocket();
+            stalledServer.setReceiveBufferSize(4096);
+            stalledServer.bind(new InetSocketAddress("127.0.0.1", 0));
+            Thread acceptor = new Thread(() -> {
+                try {
+                    stalled.add(stalledServer.accept());
+                } catch (IOException ignored) {
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            sender.connect(new Peer("stalled", "127.0.0.1", stalledServer.getLocalPort()));
+            ids.add("stalled");
+        }
+        for (String id : ids) {
+            while (!sender.isConnected(id)) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @TearDown
+    public void close() throws IOException {
+        sender.close();
+        for (PeerTransport sink : sinks) {
+            sink.close();
+        }
+        for (Socket socket : stalled) {
+            socket.close();
+        }
+        if (stalledServer != null) {
+            stalledServer.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void broadcast() throws InterruptedException {
+        long target = received.get() + (long) FRAMES * peers;
+        for (int i = 0; i < FRAMES; i++) {
+            sender.broadcast(MessageType.TEXT, payload);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.get() < target) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Frames were not delivered");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
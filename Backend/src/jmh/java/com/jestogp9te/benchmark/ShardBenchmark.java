@@ -0,0 +1,87 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.blockchain.Mempool;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.sharding.ShardManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Routing cost on its own, and end-to-end settlement of a burst of transfers including
+// cross-shard receipts. The second shows how throughput scales with the shard count on the
+// cores available.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int BURST = 20_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    private ShardManager manager;
+
+    @Setup(Level.Trial)
+    public void start() {
+        manager = new ShardManager(shards);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            manager.fund("account-" + i, 1e12);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        manager.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Burst {
+        private List<Transaction> transactions;
+        private long salt;
+
+        @Setup(Level.Invocation)
+        public void next() {
+            SplittableRandom random = new SplittableRandom(salt);
+            transactions = new ArrayList<>(BURST);
+            for (int i = 0; i < BURST; i++) {
+                transactions.add(new Transaction("account-" + random.nextInt(ACCOUNTS),
+                        "account-" + random.nextInt(ACCOUNTS), 1 + (salt++) * 1e-9));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+        private long counter;
+
+        Transaction next() {
+            return new Transaction("account-" + random.nextInt(ACCOUNTS),
+                    "account-" + random.nextInt(ACCOUNTS), 1 + (counter++) * 1e-9);
+        }
+    }
+
+    // Admission into the owning shard's mempool; the shards drain it in the background
+    @Benchmark
+    public Mempool.AdmissionResult routeTransaction(Cursor cursor) {
+        return manager.routeTransaction(cursor.next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void settleBurst(Burst burst) throws InterruptedException {
+        for (Transaction tx : burst.transactions) {
+            manager.routeTransaction(tx);
+        }
+        if (!manager.awaitIdle(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Shards did not settle");
+        }
+    }
+}
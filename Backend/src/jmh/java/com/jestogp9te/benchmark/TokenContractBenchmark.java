@@ -0,0 +1,98 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.token.TokenContract;
+import com.jestogp9te.token.TokenTransfer;
+import com.jestogp9te.token.TransferBatchResult;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// In-memory ledger. With 2 accounts every transfer contends for the same stripes; with many
+// accounts threads rarely meet. Run with -prof gc to see the allocation per transfer.
+// Each trial ends by checking that the balances still add up to the total supply, so a lost
+// update under contention fails the run instead of only skewing the score.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenContractBenchmark {
+
+    private static final BigInteger ONE = BigInteger.ONE;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"2", "100000"})
+    public int accounts;
+
+    private TokenContract contract;
+    private String[] addresses;
+
+    @Setup
+    public void setup() {
+        contract = new TokenContract();
+        addresses = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            addresses[i] = "account-" + i;
+            contract.mint(addresses[i], BigInteger.valueOf(1_000_000_000_000L));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void checkSupply() {
+        BigInteger sum = BigInteger.ZERO;
+        for (String address : addresses) {
+            BigInteger balance = contract.balanceOf(address);
+            if (balance.signum() < 0) {
+                throw new IllegalStateException(address + " has a negative balance " + balance);
+            }
+            sum = sum.add(balance);
+        }
+        if (!sum.equals(contract.getTotalSupply())) {
+            throw new IllegalStateException("Balances add up to " + sum + " but the total supply is "
+                    + contract.getTotalSupply());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+
+    private void randomTransfer(Cursor cursor) {
+        int from = cursor.next(accounts);
+        int to = (from + 1 + cursor.next(accounts - 1)) % accounts;
+        contract.transfer(addresses[from], addresses[to], ONE);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transfer(Cursor cursor) {
+        randomTransfer(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transferContended(Cursor cursor) {
+        randomTransfer(cursor);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public TransferBatchResult transferBatch(Cursor cursor) {
+        List<TokenTransfer> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int from = cursor.next(accounts);
+            batch.add(new TokenTransfer(addresses[from], addresses[(from + 1) % accounts], ONE));
+        }
+        return contract.transferBatch(batch);
+    }
+}
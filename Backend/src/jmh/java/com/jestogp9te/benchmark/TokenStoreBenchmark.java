@@ -0,0 +1,117 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.persistence.LevelDBManager;
+import com.jestogp9te.persistence.TokenStore;
+import com.jestogp9te.token.TokenContract;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Durable ledger on a temporary LevelDB. Transfers return once their WAL entry is synced, so
+// throughput comes from group commit and grows with the number of concurrent writers.
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenStoreBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    private static String account(int i) {
+        return "account-" + i;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        @Param({"true", "false"})
+        public boolean sync;
+
+        private Path directory;
+        private LevelDBManager db;
+        private TokenStore store;
+        private TokenContract contract;
+
+        @Setup
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("token-bench");
+            db = new LevelDBManager(directory.toString());
+            store = new TokenStore(db, sync);
+            contract = new TokenContract("Bench", "BEN", store, 100_000);
+            contract.recover();
+            for (int i = 0; i < ACCOUNTS; i++) {
+                contract.mint(account(i), BigInteger.valueOf(1_000_000_000L));
+            }
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            contract.close();
+            store.close();
+            db.close();
+            Fixtures.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public void durableTransfer(Ledger ledger, Cursor cursor) {
+        int from = cursor.random.nextInt(ACCOUNTS);
+        ledger.contract.transfer(account(from), account((from + 1) % ACCOUNTS), BigInteger.ONE);
+    }
+
+    // Startup cost of rebuilding the ledger from a snapshot plus a WAL tail
+    @State(Scope.Benchmark)
+    public static class StoredLedger {
+        @Param({"10000", "100000"})
+        public int walEntries;
+
+        private Path directory;
+        private LevelDBManager db;
+        private TokenStore store;
+
+        @Setup
+        public void write() throws IOException {
+            directory = Files.createTempDirectory("token-recovery");
+            db = new LevelDBManager(directory.toString());
+            store = new TokenStore(db, false);
+            try (TokenContract contract = new TokenContract("Bench", "BEN", store, Long.MAX_VALUE)) {
+                contract.recover();
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    contract.mint(account(i), BigInteger.valueOf(1_000_000_000L));
+                }
+                contract.snapshot();
+                for (int i = 0; i < walEntries; i++) {
+                    contract.transfer(account(i % ACCOUNTS), account((i + 1) % ACCOUNTS), BigInteger.ONE);
+                }
+            }
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            store.close();
+            db.close();
+            Fixtures.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public TokenContract recover(StoredLedger stored) {
+        TokenContract contract = new TokenContract("Bench", "BEN", stored.store, Long.MAX_VALUE);
+        contract.recover();
+        return contract;
+    }
+}
@@ -0,0 +1,47 @@
+package com.jestogp9te.benchmark;
+
+import com.jestogp9te.util.WalletUtil;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WalletBenchmark {
+
+    private static final String DATA = "f1d2d2f924e986ac86fdf7b36c94bcdf32beec15a2b5a1b8f5f3e1b3c0f1a2b3";
+
+    private KeyPair keyPair;
+    private String publicKey;
+    private byte[] signature;
+    private String encodedSignature;
+
+    @Setup
+    public void setup() {
+        keyPair = WalletUtil.generateKeyPair();
+        publicKey = WalletUtil.getStringFromKey(keyPair.getPublic());
+        signature = WalletUtil.sign(keyPair.getPrivate(), DATA);
+        encodedSignature = Base64.getEncoder().encodeToString(signature);
+    }
+
+    @Benchmark
+    public byte[] sign() {
+        return WalletUtil.sign(keyPair.getPrivate(), DATA);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return WalletUtil.verify(keyPair.getPublic(), DATA, signature);
+    }
+
+    // Includes decoding the Base64 public key and signature on every call
+    @Benchmark
+    public boolean verifySignature() {
+        return WalletUtil.verifySignature(publicKey, DATA, encodedSignature);
+    }
+}
@@ -4,8 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -19,6 +21,18 @@ public class GlobalExceptionHandler {
             .body("Internal server error: " + ex.getMessage());
     }
     
+    // Event stream clients hang up whenever they like; there is no response left to write
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleDisconnectedClient(AsyncRequestNotUsableException ex) {
+        logger.debug("Client disconnected: {}", ex.getMessage());
+    }
+
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<String> handleMissingParameter(MissingServletRequestParameterException ex) {
+        logger.debug("Rejected request: {}", ex.getMessage());
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
     @ExceptionHandler(com.jestogp9te.blockchain.WalletException.class)
     public ResponseEntity<String> handleWalletException(com.jestogp9te.blockchain.WalletException ex) {
         logger.error("Wallet exception occurred: ", ex);
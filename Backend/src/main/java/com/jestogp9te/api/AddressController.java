@@ -0,0 +1,41 @@
+package com.jestogp9te.api;
+
+import com.jestogp9te.blockchain.Blockchain;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/address")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class AddressController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final Blockchain blockchain;
+
+    public AddressController(Blockchain blockchain) {
+        this.blockchain = blockchain;
+    }
+
+    // Confirmed transactions sent or received by the address, newest first. Addresses are
+    // Base64 public keys that may contain '/' and '+', so they go in the query string.
+    @GetMapping("/transactions")
+    public ResponseEntity<?> getTransactions(@RequestParam String address,
+                                             @RequestParam(defaultValue = "0") long offset,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "offset must be >= 0 and limit between 1 and " + MAX_PAGE_SIZE));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("address", address);
+        response.put("total", blockchain.getAddressTransactionCount(address));
+        response.put("offset", offset);
+        response.put("limit", limit);
+        response.put("transactions", blockchain.getAddressTransactions(address, offset, limit));
+        return ResponseEntity.ok(response);
+    }
+}
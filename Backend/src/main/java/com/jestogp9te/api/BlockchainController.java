@@ -1,12 +1,25 @@
 package com.jestogp9te.api;
 
+import com.jestogp9te.blockchain.AuditStatus;
 import com.jestogp9te.blockchain.Block;
 import com.jestogp9te.blockchain.Blockchain;
+import com.jestogp9te.blockchain.ChainAuditor;
+import com.jestogp9te.blockchain.MerkleProof;
 import com.jestogp9te.blockchain.Transaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/blockchain")
@@ -16,9 +29,73 @@ public class BlockchainController {
     @Autowired
     private Blockchain blockchain;
 
+    @Autowired
+    private ChainAuditor chainAuditor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Same JSON array as before, but written block by block instead of built in memory
     @GetMapping("/chain")
-    public List<Block> getChain() {
-        return blockchain.getChain();
+    public ResponseEntity<StreamingResponseBody> getChain() {
+        int length = blockchain.getLength();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+            try (JsonGenerator json = generator(out)) {
+                json.writeStartArray();
+                for (int height = 0; height < length; height++) {
+                    json.writeObject(blockchain.getBlock(height));
+                }
+                json.writeEndArray();
+            }
+        });
+    }
+
+    // One block per line for heights [from, to); the end defaults to the tip when the request starts
+    @GetMapping("/chain/stream")
+    public ResponseEntity<StreamingResponseBody> streamChain(@RequestParam(defaultValue = "0") int from,
+                                                             @RequestParam(required = false) Integer to) {
+        int end = Math.min(to != null ? to : Integer.MAX_VALUE, blockchain.getLength());
+        int start = Math.max(from, 0);
+        return ResponseEntity.ok().contentType(NDJSON).body(out -> {
+            try (JsonGenerator json = generator(out)) {
+                json.setRootValueSeparator(null);
+                for (int height = start; height < end; height++) {
+                    json.writeObject(blockchain.getBlock(height));
+                    json.writeRaw('\n');
+                    if (height % 64 == 63) {
+                        json.flush();
+                    }
+                }
+            }
+        });
+    }
+
+    // Cursor is the first height of the page; nextCursor is null once the end of the chain is reached
+    @GetMapping("/blocks")
+    public ResponseEntity<?> getBlocks(@RequestParam(required = false) Integer cursor,
+                                       @RequestParam(defaultValue = "20") int limit,
+                                       @RequestParam(defaultValue = "asc") String order) {
+        boolean descending = "desc".equalsIgnoreCase(order);
+        if (limit < 1 || limit > MAX_PAGE_SIZE || (!descending && !"asc".equalsIgnoreCase(order))) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE + " and order asc or desc"));
+        }
+        int length = blockchain.getLength();
+        int start = cursor != null ? cursor : (descending ? length - 1 : 0);
+        List<Block> blocks = new ArrayList<>(Math.min(limit, length));
+        int height = start;
+        while (height >= 0 && height < length && blocks.size() < limit) {
+            blocks.add(blockchain.getBlock(height));
+            height += descending ? -1 : 1;
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("blocks", blocks);
+        response.put("nextCursor", height >= 0 && height < length ? height : null);
+        response.put("length", length);
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/latest")
@@ -28,17 +105,32 @@ public class BlockchainController {
 
     @GetMapping("/block/{index}")
     public Block getBlock(@PathVariable int index) {
-        if (index >= 0 && index < blockchain.getChain().size()) {
-            return blockchain.getChain().get(index);
+        Block block = blockchain.getBlock(index);
+        if (block != null) {
+            return block;
         }
         throw new IllegalArgumentException("Block index out of range");
     }
 
+    @GetMapping("/block/{index}/proof/{txHash}")
+    public MerkleProof getTransactionProof(@PathVariable int index, @PathVariable String txHash) {
+        return getBlock(index).getMerkleProof(txHash);
+    }
+
     @GetMapping("/transactions")
-    public List<Transaction> getAllTransactions() {
-        return blockchain.getChain().stream()
-                .flatMap(block -> block.getTransactions().stream())
-                .toList();
+    public ResponseEntity<StreamingResponseBody> getAllTransactions() {
+        int length = blockchain.getLength();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+            try (JsonGenerator json = generator(out)) {
+                json.writeStartArray();
+                for (int height = 0; height < length; height++) {
+                    for (Transaction tx : blockchain.getBlock(height).getTransactions()) {
+                        json.writeObject(tx);
+                    }
+                }
+                json.writeEndArray();
+            }
+        });
     }
 
     @GetMapping("/isValid")
@@ -46,8 +138,25 @@ public class BlockchainController {
         return blockchain.isValid();
     }
 
+    @PostMapping("/audit")
+    public AuditStatus startAudit() {
+        return chainAuditor.start();
+    }
+
+    @GetMapping("/audit")
+    public AuditStatus getAuditStatus() {
+        return chainAuditor.getStatus();
+    }
+
     @GetMapping("/length")
     public int getLength() {
-        return blockchain.getChain().size();
+        return blockchain.getLength();
+    }
+
+    // The servlet stream is owned by the container; only the generator is closed here
+    private JsonGenerator generator(OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return json;
     }
-} 
\ No newline at end of file
+}
@@ -2,7 +2,7 @@
 package com.jestogp9te.api;
 
 import com.jestogp9te.blockchain.Blockchain;
-import com.jestogp9te.network.PeerNetwork;
+import com.jestogp9te.monitoring.NodeStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -19,7 +19,7 @@ public class HomeController {
     private Blockchain blockchain;
     
     @Autowired
-    private PeerNetwork peerNetwork;
+    private NodeStatistics statistics;
 
     @GetMapping("/")
     public String home() {
@@ -30,22 +30,15 @@ public class HomeController {
     public Map<String, Object> getSystemHealth() {
         Map<String, Object> health = new HashMap<>();
         health.put("status", "healthy");
-        health.put("blockHeight", blockchain.getChain().size());
-        health.put("pendingTransactions", blockchain.getPendingTransactions().size());
-        health.put("peers", peerNetwork.getPeerAddresses().size());
+        health.put("blockHeight", statistics.getTotalBlocks());
+        health.put("pendingTransactions", statistics.getPendingTransactions());
+        health.put("peers", statistics.getPeerCount());
         health.put("isValid", blockchain.isValid());
         return health;
     }
     
     @GetMapping("/stats")
     public Map<String, Object> getStats() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalBlocks", blockchain.getChain().size());
-        stats.put("totalTransactions", blockchain.getChain().stream()
-            .mapToInt(block -> block.getTransactions().size())
-            .sum());
-        stats.put("pendingTransactions", blockchain.getPendingTransactions().size());
-        stats.put("connectedPeers", peerNetwork.getPeerAddresses().size());
-        return stats;
+        return statistics.snapshot();
     }
 }
\ No newline at end of file
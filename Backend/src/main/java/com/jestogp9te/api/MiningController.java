@@ -1,32 +1,123 @@
 package com.jestogp9te.api;
 
-import com.jestogp9te.blockchain.Blockchain;
-import com.jestogp9te.blockchain.Miner;
-import com.jestogp9te.blockchain.Transaction;
-import org.springframework.web.bind.annotation.*;
-
+import com.jestogp9te.blockchain.MiningJob;
+import com.jestogp9te.blockchain.MiningService;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+// Mining runs in the background; requests only submit, inspect or cancel jobs
 @RestController
 @RequestMapping("/mining")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class MiningController {
 
-    private final Blockchain blockchain;
-    private final Miner miner;
+    // Event streams are closed after this long even if the job is still running
+    private static final long EVENT_STREAM_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final MiningService miningService;
 
-    public MiningController(Blockchain blockchain, Miner miner) {
-        this.blockchain = blockchain;
-        this.miner = miner;
+    public MiningController(MiningService miningService) {
+        this.miningService = miningService;
     }
 
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        return miningService.getStatus();
+    }
+
+    // Turns background mining of pending transactions on or off
+    @PostMapping("/start")
+    public Map<String, Object> start() {
+        miningService.setEnabled(true);
+        return miningService.getStatus();
+    }
+
+    @PostMapping("/stop")
+    public Map<String, Object> stop() {
+        miningService.setEnabled(false);
+        return miningService.getStatus();
+    }
+
+    // Kept for existing clients: queues a one-block job instead of mining on this thread
     @PostMapping("/mine")
-    public String mineBlock() {
-        List<Transaction> pendingTxs = blockchain.getPendingTransactions();
-        if (pendingTxs.isEmpty()) {
-            return "No transactions to mine";
+    public ResponseEntity<?> mineBlock() {
+        return submitJob(1);
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestParam(defaultValue = "1") int blocks) {
+        try {
+            MiningJob job = miningService.submit(blocks);
+            return ResponseEntity.accepted().body(job.snapshot());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
-        miner.mine(pendingTxs);
-        return "Block mined successfully";
+    }
+
+    @GetMapping("/jobs")
+    public List<Map<String, Object>> getJobs() {
+        return miningService.getJobs().stream().map(MiningJob::snapshot).toList();
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getJob(@PathVariable long id) {
+        MiningJob job = miningService.getJob(id);
+        return job != null ? ResponseEntity.ok(job.snapshot()) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<?> cancelJob(@PathVariable long id) {
+        MiningJob job = miningService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!miningService.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.snapshot());
+        }
+        return ResponseEntity.ok(job.snapshot());
+    }
+
+    // Server-sent events with a job snapshot after every change; the stream ends with the job
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable long id) {
+        MiningJob job = miningService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = new SseEmitter(EVENT_STREAM_TIMEOUT_MS);
+        Consumer<Map<String, Object>> subscriber = new Consumer<>() {
+            @Override
+            public void accept(Map<String, Object> snapshot) {
+                try {
+                    emitter.send(SseEmitter.event().name("job").data(snapshot, MediaType.APPLICATION_JSON));
+                    if (isFinished(snapshot)) {
+                        job.unsubscribe(this);
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    job.unsubscribe(this);
+                }
+            }
+        };
+        emitter.onCompletion(() -> job.unsubscribe(subscriber));
+        emitter.onTimeout(() -> job.unsubscribe(subscriber));
+        emitter.onError(e -> job.unsubscribe(subscriber));
+        job.subscribe(subscriber);
+        // The current state goes first; a job that already finished ends the stream right away
+        subscriber.accept(job.snapshot());
+        return ResponseEntity.ok(emitter);
+    }
+
+    private static boolean isFinished(Map<String, Object> snapshot) {
+        Object status = snapshot.get("status");
+        return status == MiningJob.Status.COMPLETED || status == MiningJob.Status.CANCELLED
+                || status == MiningJob.Status.FAILED;
     }
 }
@@ -0,0 +1,93 @@
+package com.jestogp9te.api;
+
+import com.jestogp9te.blockchain.Mempool;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.sharding.Shard;
+import com.jestogp9te.sharding.ShardManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/shards")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class ShardController {
+
+    private final ShardManager shardManager;
+
+    public ShardController(ShardManager shardManager) {
+        this.shardManager = shardManager;
+    }
+
+    @GetMapping
+    public Map<String, Object> getShards() {
+        return shardManager.snapshot();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getShard(@PathVariable int id) {
+        Shard shard = shardManager.getShard(id);
+        if (shard == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> body = new LinkedHashMap<>(shard.snapshot());
+        body.put("lastBlock", shard.getLastBlock());
+        return ResponseEntity.ok(body);
+    }
+
+    // Adds a shard to the ring; its key ranges are migrated in the background
+    @PostMapping
+    public ResponseEntity<?> addShard() {
+        try {
+            int shardId = shardManager.addShard();
+            return ResponseEntity.accepted().body(Map.of("shardId", shardId, "migration", shardManager.getMigrationStatus()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> removeShard(@PathVariable int id) {
+        if (shardManager.getShard(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            shardManager.removeShard(id);
+            return ResponseEntity.accepted().body(Map.of("migration", shardManager.getMigrationStatus()));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/migration")
+    public Map<String, Object> getMigration() {
+        return shardManager.getMigrationStatus();
+    }
+
+    @PostMapping("/transaction")
+    public ResponseEntity<?> submitTransaction(@RequestBody Transaction tx) {
+        if (tx.getSender() == null || tx.getRecipient() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "sender and recipient are required"));
+        }
+        Mempool.AdmissionResult result = shardManager.routeTransaction(tx);
+        return ResponseEntity.ok(Map.of("shardId", shardManager.shardFor(tx.getSender()), "result", result));
+    }
+
+    @PostMapping("/fund")
+    public Map<String, Object> fund(@RequestParam String address, @RequestParam double amount) {
+        shardManager.fund(address, amount);
+        return balance(address);
+    }
+
+    @GetMapping("/balance")
+    public Map<String, Object> balance(@RequestParam String address) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("address", address);
+        body.put("shardId", shardManager.shardFor(address));
+        body.put("balance", shardManager.getBalance(address));
+        return body;
+    }
+}
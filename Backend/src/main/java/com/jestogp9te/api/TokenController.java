@@ -1,16 +1,27 @@
 package com.jestogp9te.api;
 
 import com.jestogp9te.token.TokenContract;
+import com.jestogp9te.token.TokenTransfer;
+import com.jestogp9te.token.TransferBatchResult;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/token")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class TokenController {
 
-    private final TokenContract tokenContract = new TokenContract();
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    private final TokenContract tokenContract;
+
+    public TokenController(TokenContract tokenContract) {
+        this.tokenContract = tokenContract;
+    }
 
     @GetMapping("/balance")
     public BigInteger getBalance(@RequestParam String address) {
@@ -32,4 +43,15 @@ public class TokenController {
             return "Transfer failed: " + e.getMessage();
         }
     }
+
+    // Body is a JSON array of ["from", "to", amount] entries, applied all-or-nothing
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<?> transferBatch(@RequestBody List<TokenTransfer> transfers) {
+        if (transfers.isEmpty() || transfers.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Batch must contain between 1 and " + MAX_BATCH_SIZE + " transfers"));
+        }
+        TransferBatchResult result = tokenContract.transferBatch(transfers);
+        return result.isApplied() ? ResponseEntity.ok(result) : ResponseEntity.unprocessableEntity().body(result);
+    }
 }
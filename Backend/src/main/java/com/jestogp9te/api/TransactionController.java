@@ -1,10 +1,16 @@
 package com.jestogp9te.api;
 
 import com.jestogp9te.blockchain.Blockchain;
+import com.jestogp9te.blockchain.IndexedTransaction;
+import com.jestogp9te.blockchain.Mempool;
 import com.jestogp9te.blockchain.Transaction;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/transaction")
@@ -18,13 +24,48 @@ public class TransactionController {
     }
 
     @PostMapping("/new")
-    public String createTransaction(@RequestBody Transaction transaction) {
-        blockchain.addTransaction(transaction); // returns void
-        return "Transaction added";
+    public ResponseEntity<String> createTransaction(@RequestBody Transaction transaction) {
+        Mempool.AdmissionResult result = blockchain.addTransaction(transaction);
+        switch (result) {
+            case DUPLICATE:
+                return ResponseEntity.ok("Transaction already pending");
+            case POOL_FULL:
+                return ResponseEntity.ok("Transaction rejected: mempool is full and its fee is too low");
+            case INVALID_SIGNATURE:
+                return ResponseEntity.ok("Transaction rejected: invalid signature");
+            case TOO_LARGE:
+                return ResponseEntity.ok("Transaction rejected: too large to fit in a block");
+            case ALREADY_MINED:
+                return ResponseEntity.ok("Transaction rejected: an identical transaction is already on the chain");
+            case MALFORMED:
+                return ResponseEntity.badRequest()
+                        .body("Transaction rejected: sender, recipient, a positive amount and a non-negative fee are required");
+            default:
+                return ResponseEntity.ok("Transaction added");
+        }
+    }
+
+    @PostMapping("/batch")
+    public Map<String, Object> createTransactions(@RequestBody List<Transaction> transactions) {
+        List<Mempool.AdmissionResult> results = blockchain.addTransactions(transactions);
+        Map<Mempool.AdmissionResult, Long> counts = new EnumMap<>(Mempool.AdmissionResult.class);
+        for (Mempool.AdmissionResult result : results) {
+            counts.merge(result, 1L, Long::sum);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", results);
+        response.put("counts", counts);
+        return response;
     }
 
     @GetMapping("/pending")
     public List<Transaction> getPendingTransactions() {
         return blockchain.getPendingTransactions();
     }
+
+    @GetMapping("/{hash}")
+    public ResponseEntity<IndexedTransaction> getTransaction(@PathVariable String hash) {
+        IndexedTransaction tx = blockchain.findTransaction(hash);
+        return tx != null ? ResponseEntity.ok(tx) : ResponseEntity.notFound().build();
+    }
 }
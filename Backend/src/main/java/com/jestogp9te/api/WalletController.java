@@ -1,31 +1,41 @@
 package com.jestogp9te.api;
 
+import com.jestogp9te.blockchain.KeyPairPool;
+import com.jestogp9te.blockchain.SignatureVerifier;
 import com.jestogp9te.blockchain.Wallet;
 import com.jestogp9te.blockchain.WalletException;
-import com.jestogp9te.util.WalletUtil;
+import com.jestogp9te.blockchain.WalletKeystore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
+// Wallets live in the WalletKeystore and are addressed by their Base64 public key
 @RestController
 @RequestMapping("/wallet")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class WalletController {
 
     private static final Logger logger = LoggerFactory.getLogger(WalletController.class);
-    private Wallet wallet = new Wallet();
+    private final SignatureVerifier verifier;
+    private final KeyPairPool keyPool;
+    private final WalletKeystore keystore;
+
+    public WalletController(SignatureVerifier verifier, KeyPairPool keyPool, WalletKeystore keystore) {
+        this.verifier = verifier;
+        this.keyPool = keyPool;
+        this.keystore = keystore;
+    }
 
     @GetMapping("/new")
     public ResponseEntity<?> createWallet() {
         logger.info("Creating new wallet...");
         try {
-            logger.debug("Generating key pair...");
-            wallet.generateKeyPair();
-            logger.debug("Key pair generated successfully");
+            Wallet wallet = keystore.create(keyPool.take());
 
             Map<String, String> response = new HashMap<>();
             response.put("address", wallet.getAddress());
@@ -46,17 +56,18 @@ public class WalletController {
     }
 
     @GetMapping("/address")
-    public ResponseEntity<?> getAddress() {
+    public ResponseEntity<?> getAddress(@RequestParam String address) {
         logger.info("Getting wallet address...");
         try {
-            String address = wallet.getAddress();
-            logger.info("Wallet address retrieved: {}", address);
-            Map<String, String> response = new HashMap<>();
+            if (!keystore.contains(address)) {
+                logger.warn("No wallet found for {}", address);
+                return ResponseEntity.status(404).body("No wallet with this address");
+            }
+            Map<String, Object> response = new HashMap<>();
             response.put("address", address);
+            response.put("publicKey", address);
+            response.put("createdAt", keystore.getCreatedAt(address));
             return ResponseEntity.ok(response);
-        } catch (WalletException e) {
-            logger.warn("No wallet created yet: {}", e.getMessage());
-            return ResponseEntity.status(404).body("No wallet created yet");
         } catch (Exception e) {
             logger.error("Error getting wallet address: ", e);
             return ResponseEntity.internalServerError()
@@ -65,12 +76,16 @@ public class WalletController {
     }
 
     @PostMapping("/sign")
-    public ResponseEntity<?> sign(@RequestBody String data) {
+    public ResponseEntity<?> sign(@RequestParam String address, @RequestBody String data) {
         logger.info("Signing data...");
         try {
-            String signature = WalletUtil.signData(wallet.getPrivateKeyObject(), data);
+            if (!keystore.contains(address)) {
+                return ResponseEntity.status(404).body("No wallet with this address");
+            }
+            String signature = keystore.signData(address, data);
             logger.info("Data signed successfully");
             Map<String, String> response = new HashMap<>();
+            response.put("address", address);
             response.put("signature", signature);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -84,7 +99,7 @@ public class WalletController {
     public ResponseEntity<?> verify(@RequestParam String publicKey, @RequestParam String data, @RequestParam String signature) {
         logger.info("Verifying signature...");
         try {
-            boolean isValid = WalletUtil.verifySignature(publicKey, data, signature);
+            boolean isValid = verifier.verifySignature(publicKey, data, Base64.getDecoder().decode(signature));
             logger.info("Signature verification result: {}", isValid);
             Map<String, Object> response = new HashMap<>();
             response.put("isValid", isValid);
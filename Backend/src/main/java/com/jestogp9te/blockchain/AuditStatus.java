@@ -0,0 +1,59 @@
+package com.jestogp9te.blockchain;
+
+// Snapshot of a full chain audit for the REST API
+public class AuditStatus {
+
+    // ABORTED means the audit stopped on an error before reaching a verdict
+    public enum State { IDLE, RUNNING, PASSED, FAILED, ABORTED }
+
+    private final State state;
+    private final long checkedBlocks;
+    private final long totalBlocks;
+    private final int firstInvalidHeight;
+    private final long startedAt;
+    private final long finishedAt;
+    private final String error;
+
+    public AuditStatus(State state, long checkedBlocks, long totalBlocks, int firstInvalidHeight,
+                       long startedAt, long finishedAt, String error) {
+        this.state = state;
+        this.checkedBlocks = checkedBlocks;
+        this.totalBlocks = totalBlocks;
+        this.firstInvalidHeight = firstInvalidHeight;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getCheckedBlocks() {
+        return checkedBlocks;
+    }
+
+    public long getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    public double getProgress() {
+        return totalBlocks > 0 ? (double) checkedBlocks / totalBlocks : 0.0;
+    }
+
+    public int getFirstInvalidHeight() {
+        return firstInvalidHeight;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
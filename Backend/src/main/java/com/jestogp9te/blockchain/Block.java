@@ -1,6 +1,10 @@
 package com.jestogp9te.blockchain;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.jestogp9te.util.HashUtil;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,37 +13,113 @@ public class Block {
     private long timestamp;
     private List<Transaction> transactions;
     private String previousHash;
+    private String merkleRoot;
     private String hash;
     private int nonce;
+    private int bits;
+    private MerkleTree merkleTree;
 
+    // Template at the easiest target any block may claim
     public Block(int index, List<Transaction> transactions, String previousHash) {
-    this.index = index;
-    this.timestamp = System.currentTimeMillis();
-    this.transactions = transactions != null ? new ArrayList<>(transactions) : new ArrayList<>();
-    this.previousHash = previousHash;
-    this.hash = calculateHash();
-}
+        this(index, transactions, previousHash, Target.MAX_BITS);
+    }
+
+    // Template to be mined against the compact target in bits
+    public Block(int index, List<Transaction> transactions, String previousHash, int bits) {
+        this.index = index;
+        this.bits = bits;
+        this.timestamp = System.currentTimeMillis();
+        this.transactions = transactions != null ? new ArrayList<>(transactions) : new ArrayList<>();
+        this.previousHash = previousHash;
+        this.merkleTree = MerkleTree.fromTransactions(this.transactions);
+        this.merkleRoot = merkleTree.getRootHex();
+        this.hash = calculateHash();
+    }
+
+    // Restore a previously mined block exactly as it was stored
+    @JsonCreator
+    public Block(@JsonProperty("index") int index,
+                 @JsonProperty("timestamp") long timestamp,
+                 @JsonProperty("transactions") List<Transaction> transactions,
+                 @JsonProperty("previousHash") String previousHash,
+                 @JsonProperty("merkleRoot") String merkleRoot,
+                 @JsonProperty("nonce") int nonce,
+                 @JsonProperty("bits") int bits,
+                 @JsonProperty("hash") String hash) {
+        this.index = index;
+        this.bits = bits;
+        this.timestamp = timestamp;
+        this.transactions = transactions != null ? new ArrayList<>(transactions) : new ArrayList<>();
+        this.previousHash = previousHash;
+        this.merkleRoot = merkleRoot;
+        this.nonce = nonce;
+        this.hash = hash;
+    }
 
     public String calculateHash() {
-        return HashUtil.sha256(index + Long.toString(timestamp) + transactions.toString() + previousHash + nonce);
+        return HashUtil.toHex(header().hash());
+    }
+
+    // Binary header for this block; mining workers keep their own copy and only rewrite the nonce
+    BlockHeader header() {
+        return new BlockHeader(index, timestamp, HashUtil.fromHex(previousHash), HashUtil.fromHex(merkleRoot), nonce, bits);
     }
 
-    public void mineBlock(int difficulty) {
-    String prefix = "0".repeat(difficulty);
-    if (calculateHash().length() < difficulty) {
-        throw new IllegalArgumentException("Difficulty is too high for the hash length.");
+    // Target the block hash has to meet; invalid compact bits throw IllegalArgumentException
+    @JsonIgnore
+    public BigInteger getTarget() {
+        return Target.toBigInteger(bits);
     }
-    while (true) {
-        if (hash.substring(0, difficulty).equals(prefix)) {
-            break;
+
+    // The hash meets the target the block declares; whether that target was the right one
+    // for its height is up to the chain
+    public boolean hasValidProofOfWork() {
+        BigInteger target;
+        try {
+            target = getTarget();
+        } catch (IllegalArgumentException e) {
+            return false;
         }
-        nonce++;
-        hash = calculateHash();
+        byte[] digest = header().hash();
+        return Target.isMetBy(digest, Target.toBytes(target)) && hash.equals(HashUtil.toHex(digest));
+    }
+
+    public boolean hasValidMerkleRoot() {
+        return merkleRoot.equals(MerkleTree.getMerkleRoot(transactions));
+    }
+
+    // Tree is built once and cached; blocks restored without one rebuild it on first use
+    @JsonIgnore
+    public synchronized MerkleTree getMerkleTree() {
+        if (merkleTree == null) {
+            merkleTree = MerkleTree.fromTransactions(transactions);
+        }
+        return merkleTree;
+    }
+
+    public MerkleProof getMerkleProof(String transactionHash) {
+        MerkleTree tree = getMerkleTree();
+        int position = tree.indexOf(HashUtil.fromHex(transactionHash));
+        if (position < 0) {
+            throw new IllegalArgumentException("Transaction not found in block");
+        }
+        return tree.getProof(position);
+    }
+
+    // Adopt a solution found by MiningEngine; the timestamp may have been rolled as an extra nonce
+    void applySolution(long timestamp, int nonce, String hash) {
+        this.timestamp = timestamp;
+        this.nonce = nonce;
+        this.hash = hash;
     }
-}
 
     // Getters
+    public int getIndex() { return index; }
+    public long getTimestamp() { return timestamp; }
+    public int getNonce() { return nonce; }
+    public int getBits() { return bits; }
     public String getHash() { return hash; }
     public String getPreviousHash() { return previousHash; }
+    public String getMerkleRoot() { return merkleRoot; }
     public List<Transaction> getTransactions() { return transactions; }
 }
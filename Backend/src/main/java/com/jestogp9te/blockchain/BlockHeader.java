@@ -0,0 +1,62 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.util.HashUtil;
+import java.security.MessageDigest;
+
+// Fixed-size binary header that is hashed for proof of work:
+// index (4) | timestamp (8) | previous hash (32) | Merkle root (32) | nonce (4) | bits (4), big-endian.
+public class BlockHeader {
+
+    public static final int SIZE = 84;
+
+    private static final int INDEX_OFFSET = 0;
+    private static final int TIMESTAMP_OFFSET = 4;
+    private static final int PREVIOUS_HASH_OFFSET = 12;
+    private static final int MERKLE_ROOT_OFFSET = 44;
+    private static final int NONCE_OFFSET = 76;
+    private static final int BITS_OFFSET = 80;
+
+    private final byte[] bytes;
+
+    public BlockHeader(int index, long timestamp, byte[] previousHash, byte[] merkleRoot, int nonce, int bits) {
+        if (previousHash.length != HashUtil.HASH_LENGTH || merkleRoot.length != HashUtil.HASH_LENGTH) {
+            throw new IllegalArgumentException("Header hashes must be " + HashUtil.HASH_LENGTH + " bytes");
+        }
+        this.bytes = new byte[SIZE];
+        putInt(INDEX_OFFSET, index);
+        setTimestamp(timestamp);
+        System.arraycopy(previousHash, 0, bytes, PREVIOUS_HASH_OFFSET, HashUtil.HASH_LENGTH);
+        System.arraycopy(merkleRoot, 0, bytes, MERKLE_ROOT_OFFSET, HashUtil.HASH_LENGTH);
+        setNonce(nonce);
+        putInt(BITS_OFFSET, bits);
+    }
+
+    public void setTimestamp(long timestamp) {
+        putInt(TIMESTAMP_OFFSET, (int) (timestamp >>> 32));
+        putInt(TIMESTAMP_OFFSET + 4, (int) timestamp);
+    }
+
+    public void setNonce(int nonce) {
+        putInt(NONCE_OFFSET, nonce);
+    }
+
+    // Hash the header into out using a caller-owned digest, so the mining loop allocates nothing
+    public void hash(MessageDigest digest, byte[] out) {
+        HashUtil.sha256(digest, bytes, out);
+    }
+
+    public byte[] hash() {
+        return HashUtil.sha256(bytes);
+    }
+
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    private void putInt(int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
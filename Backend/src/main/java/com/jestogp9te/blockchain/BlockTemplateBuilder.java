@@ -0,0 +1,211 @@
+package com.jestogp9te.blockchain;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Keeps the transactions for the next block selected ahead of time, so mining can start as soon
+// as the tip moves. Selection walks the mempool's fee-rate order, which is already sorted, and
+// fills the block greedily up to mining.maxTransactions and mining.maxBlockBytes; once a
+// transaction does not fit, a bounded number of further ones are tried for the remaining space.
+// Transactions that can never be mined, such as ones too large for any block, are dropped from
+// the mempool; Blockchain already refuses to admit them.
+//
+// The selection is rebuilt when a block is added. New transactions are appended while they fit;
+// one that does not fit but pays a better fee rate than the selection's cheapest marks it for
+// a rebuild the next time a template is requested.
+@Component
+public class BlockTemplateBuilder implements BlockchainListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockTemplateBuilder.class);
+
+    // Further transactions tried for the leftover space after the first one that does not fit
+    private static final int MAX_SKIPPED_FOR_SIZE = 100;
+
+    private final Blockchain blockchain;
+    private final Mempool mempool;
+    private final MiningProperties properties;
+
+    // Selection for the block on top of tipHash; guarded by this
+    private String tipHash;
+    private int height;
+    private Transaction coinbase;
+    private final List<Transaction> selected = new ArrayList<>();
+    private final Set<String> selectedHashes = new HashSet<>();
+    private long bytes;
+    private double fees;
+    private double lowestFeeRate = Double.MAX_VALUE;
+    private boolean stale = true;
+    private long rebuilds;
+    private long incrementalAdds;
+    private long dropped;
+
+    // Bumped whenever the selection changes, so a miner can tell if its template fell behind
+    private volatile long version;
+
+    // Whether the selection holds anything besides the coinbase; read without the lock
+    private volatile boolean hasTransactions;
+
+    public BlockTemplateBuilder(Blockchain blockchain, Mempool mempool, MiningProperties properties) {
+        this.blockchain = blockchain;
+        this.mempool = mempool;
+        this.properties = properties;
+        blockchain.addListener(this);
+    }
+
+    @PostConstruct
+    public synchronized void prepare() {
+        rebuild(blockchain.getLatestBlock());
+    }
+
+    // A fresh block for the current tip with the cached selection; every call returns a new
+    // block, since mining writes the nonce and timestamp into it
+    public synchronized Block getTemplate() {
+        Block tip = blockchain.getLatestBlock();
+        if (stale || !tip.getHash().equals(tipHash)) {
+            rebuild(tip);
+        }
+        List<Transaction> transactions = new ArrayList<>(selected.size() + 1);
+        if (coinbase != null) {
+            transactions.add(coinbase);
+        }
+        transactions.addAll(selected);
+        return new Block(height, transactions, tipHash, blockchain.getDifficulty().getNextBits());
+    }
+
+    @Override
+    public synchronized void onBlockAdded(Block block) {
+        rebuild(blockchain.getLatestBlock());
+    }
+
+    @Override
+    public synchronized void onTransactionAdded(Transaction tx) {
+        if (stale || !blockchain.getLatestBlock().getHash().equals(tipHash)) {
+            return;
+        }
+        String hash = tx.calculateHash();
+        int size = Mempool.encodedSize(tx);
+        if (selectedHashes.contains(hash) || !isMineable(tx, size)) {
+            return;
+        }
+        if (fits(size)) {
+            add(tx, hash, size);
+            hasTransactions = true;
+            incrementalAdds++;
+            version++;
+        } else if (tx.getFee() / size > lowestFeeRate) {
+            stale = true;
+            version++;
+        }
+    }
+
+    private void rebuild(Block tip) {
+        tipHash = tip.getHash();
+        height = tip.getIndex() + 1;
+        selected.clear();
+        selectedHashes.clear();
+        bytes = 0;
+        fees = 0;
+        lowestFeeRate = Double.MAX_VALUE;
+        stale = false;
+        rebuilds++;
+        version++;
+
+        coinbase = rewardCoinbase(height, properties);
+        if (coinbase != null) {
+            bytes = Mempool.encodedSize(coinbase);
+        }
+
+        List<Transaction> unmineable = new ArrayList<>();
+        int[] skippedForSize = {0};
+        mempool.forEachByPriority((tx, hash, size) -> {
+            if (!isMineable(tx, size)) {
+                unmineable.add(tx);
+                return true;
+            }
+            if (count() >= properties.getMaxTransactions()) {
+                return false;
+            }
+            if (!fits(size)) {
+                return ++skippedForSize[0] < MAX_SKIPPED_FOR_SIZE;
+            }
+            add(tx, hash, size);
+            return true;
+        });
+        hasTransactions = !selected.isEmpty();
+        if (!unmineable.isEmpty()) {
+            mempool.removeAll(unmineable);
+            dropped += unmineable.size();
+            logger.debug("Dropped {} unmineable transactions from the mempool", unmineable.size());
+        }
+    }
+
+    // Signatures were checked when the transaction entered the mempool; this covers fields no
+    // block may carry and transactions that would not fit even an otherwise empty block
+    private boolean isMineable(Transaction tx, int size) {
+        return tx.isWellFormed() && !tx.isCoinbase() && size <= maxTransactionBytes(properties);
+    }
+
+    // Largest transaction that fits a block beside the coinbase of any height, or -1 when the
+    // count limit leaves no room next to the coinbase
+    static long maxTransactionBytes(MiningProperties properties) {
+        Transaction coinbase = rewardCoinbase(Integer.MAX_VALUE, properties);
+        if (properties.getMaxTransactions() <= (coinbase != null ? 1 : 0)) {
+            return -1;
+        }
+        return properties.getMaxBlockBytes() - (coinbase != null ? Mempool.encodedSize(coinbase) : 0);
+    }
+
+    private static Transaction rewardCoinbase(int height, MiningProperties properties) {
+        String rewardAddress = properties.getReward().getAddress();
+        return rewardAddress != null && !rewardAddress.isBlank()
+                ? Transaction.coinbase(height, rewardAddress, properties.getReward().getAmount())
+                : null;
+    }
+
+    private boolean fits(int size) {
+        return count() < properties.getMaxTransactions() && bytes + size <= properties.getMaxBlockBytes();
+    }
+
+    private int count() {
+        return selected.size() + (coinbase != null ? 1 : 0);
+    }
+
+    private void add(Transaction tx, String hash, int size) {
+        selected.add(tx);
+        selectedHashes.add(hash);
+        bytes += size;
+        fees += tx.getFee();
+        lowestFeeRate = Math.min(lowestFeeRate, tx.getFee() / size);
+    }
+
+    public boolean hasTransactions() {
+        return hasTransactions;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> template = new LinkedHashMap<>();
+        template.put("height", height);
+        template.put("transactions", count());
+        template.put("bytes", bytes);
+        template.put("fees", fees);
+        template.put("maxTransactions", properties.getMaxTransactions());
+        template.put("maxBytes", properties.getMaxBlockBytes());
+        template.put("stale", stale);
+        template.put("rebuilds", rebuilds);
+        template.put("incrementalAdds", incrementalAdds);
+        template.put("droppedTransactions", dropped);
+        return template;
+    }
+}
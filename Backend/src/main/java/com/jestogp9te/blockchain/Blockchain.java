@@ -1,59 +1,450 @@
 package com.jestogp9te.blockchain;
 
+import com.jestogp9te.monitoring.NodeStatistics;
+import com.jestogp9te.persistence.BlockStore;
+import com.jestogp9te.persistence.StorageException;
+import com.jestogp9te.persistence.TransactionLocation;
+import com.jestogp9te.util.HashUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 @Component
-public class Blockchain {
+public class Blockchain implements MeterBinder {
 
-    private List<Block> chain;
-    private List<Transaction> pendingTransactions;
-    private int difficulty;
+    private static final Logger logger = LoggerFactory.getLogger(Blockchain.class);
 
-    // Public constructor (Spring will manage instantiation)
-    public Blockchain() {
-        chain = new ArrayList<>();
-        pendingTransactions = new ArrayList<>();
-        chain.add(createGenesisBlock());
-        this.difficulty = 3;
+    private static final long GENESIS_TIMESTAMP = 1735689600000L; // 2025-01-01T00:00:00Z
+
+    private final BlockStore store;
+    private final List<Block> chain = new ChainView();
+    private final Mempool mempool;
+    private final SignatureVerifier verifier;
+    private final NodeStatistics statistics;
+    private final List<BlockchainListener> listeners = new CopyOnWriteArrayList<>();
+    private final DifficultyAdjuster difficulty;
+    private final int maxBlockTransactions;
+    private final long maxBlockBytes;
+    private final long maxTransactionBytes;
+    private final double blockReward;
+    private volatile Block latestBlock;
+    private long totalTransactions;
+
+    // Every block up to this height has been checked against its parent; /health only
+    // has to look at blocks above it
+    private volatile int validatedHeight;
+    private volatile int invalidHeight = -1;
+
+    // Bound by Micrometer; null until then
+    private volatile Timer signatureTimer;
+    private volatile Timer proofOfWorkTimer;
+    private volatile Timer merkleTimer;
+    private volatile Timer appendTimer;
+
+    public Blockchain(BlockStore store, Mempool mempool, SignatureVerifier verifier, NodeStatistics statistics,
+                      MiningProperties mining) {
+        this.store = store;
+        this.mempool = mempool;
+        this.verifier = verifier;
+        this.statistics = statistics;
+        // mining.difficulty is the starting point in leading zero hex digits, four zero bits each;
+        // retargeting takes over from there
+        this.difficulty = new DifficultyAdjuster(mining.getDifficulty() * 4,
+                mining.getRetargetWindow(), mining.getTargetBlockTimeMs());
+        this.maxBlockTransactions = mining.getMaxTransactions();
+        this.maxBlockBytes = mining.getMaxBlockBytes();
+        this.maxTransactionBytes = BlockTemplateBuilder.maxTransactionBytes(mining);
+        this.blockReward = mining.getReward().getAmount();
+
+        latestBlock = store.loadTip();
+        if (latestBlock == null) {
+            Block genesis = createGenesisBlock();
+            store.append(genesis, 0, 0);
+            latestBlock = genesis;
+            logger.info("Initialized new chain with genesis block {}", genesis.getHash());
+        } else {
+            validatedHeight = Math.min(store.loadValidatedHeight(), latestBlock.getIndex());
+            totalTransactions = store.loadTotalTransactions();
+            logger.info("Restored chain at height {} ({}), validated up to {}",
+                    latestBlock.getIndex(), latestBlock.getHash(), validatedHeight);
+        }
+        statistics.initialize(getLength(), totalTransactions, latestBlock.getTimestamp());
+        difficulty.reset(recentBlocks(difficulty.span()));
+        logger.info("Next block target bits {}", Integer.toHexString(difficulty.getNextBits()));
     }
 
+    // Up to count blocks ending at the tip, oldest first
+    private List<Block> recentBlocks(int count) {
+        List<Block> blocks = new ArrayList<>(count);
+        for (int height = Math.max(0, latestBlock.getIndex() - count + 1); height <= latestBlock.getIndex(); height++) {
+            blocks.add(store.getBlock(height));
+        }
+        return blocks;
+    }
+
+    // Fixed timestamp so every fresh node derives the same genesis and can accept its peers' blocks
     private Block createGenesisBlock() {
-        return new Block(0, new ArrayList<>(), "0");
+        List<Transaction> transactions = new ArrayList<>();
+        Block genesis = new Block(0, GENESIS_TIMESTAMP, transactions, HashUtil.ZERO_HASH,
+                MerkleTree.getMerkleRoot(transactions), 0, Target.MAX_BITS, null);
+        genesis.applySolution(GENESIS_TIMESTAMP, 0, genesis.calculateHash());
+        return genesis;
     }
 
+    // Append a block that has already been mined against the next target. Signatures are
+    // batch-verified before taking the chain lock.
     public void addBlock(Block block) {
-        block.mineBlock(difficulty);
-        chain.add(block);
-        pendingTransactions.clear();  // Clear mempool after mining
+        checkLimits(block);
+        List<Transaction> signed = signedTransactions(block);
+        long start = System.nanoTime();
+        List<Transaction> invalid = verifier.findInvalid(signed);
+        record(signatureTimer, start);
+        if (!invalid.isEmpty()) {
+            throw new IllegalArgumentException("Block contains " + invalid.size() + " transactions with invalid signatures");
+        }
+        appendBlock(block);
+        record(appendTimer, start);
+        for (BlockchainListener listener : listeners) {
+            listener.onBlockAdded(block);
+        }
+    }
+
+    // Counted over every transaction including the coinbase, by the same encoded size the mempool uses
+    private void checkLimits(Block block) {
+        List<Transaction> transactions = block.getTransactions();
+        if (transactions.size() > maxBlockTransactions) {
+            throw new IllegalArgumentException("Block has " + transactions.size()
+                    + " transactions, the limit is " + maxBlockTransactions);
+        }
+        long bytes = 0;
+        for (Transaction tx : transactions) {
+            bytes += Mempool.encodedSize(tx);
+        }
+        if (bytes > maxBlockBytes) {
+            throw new IllegalArgumentException("Block transactions take " + bytes + " bytes, the limit is " + maxBlockBytes);
+        }
+    }
+
+    // A block may open with one coinbase for its own height; every other transaction is signed
+    static List<Transaction> signedTransactions(Block block) {
+        List<Transaction> transactions = block.getTransactions();
+        int first = !transactions.isEmpty() && transactions.get(0).isCoinbaseFor(block.getIndex()) ? 1 : 0;
+        List<Transaction> signed = transactions.subList(first, transactions.size());
+        for (Transaction tx : signed) {
+            if (tx.isCoinbase()) {
+                throw new IllegalArgumentException("Block contains a misplaced coinbase transaction");
+            }
+        }
+        return signed;
+    }
+
+    public void addListener(BlockchainListener listener) {
+        listeners.add(listener);
+    }
+
+    private synchronized void appendBlock(Block block) {
+        if (block.getIndex() != latestBlock.getIndex() + 1
+                || !block.getPreviousHash().equals(latestBlock.getHash())) {
+            throw new IllegalArgumentException("Block does not extend the current chain tip");
+        }
+        difficulty.checkTimestamp(block, System.currentTimeMillis());
+        if (block.getBits() != difficulty.getNextBits()) {
+            throw new IllegalArgumentException("Block target bits " + Integer.toHexString(block.getBits())
+                    + " do not match the required " + Integer.toHexString(difficulty.getNextBits()));
+        }
+        long start = System.nanoTime();
+        boolean validProofOfWork = block.hasValidProofOfWork();
+        start = record(proofOfWorkTimer, start);
+        if (!validProofOfWork) {
+            throw new IllegalArgumentException("Block does not satisfy the proof of work");
+        }
+        boolean validMerkleRoot = block.hasValidMerkleRoot();
+        record(merkleTimer, start);
+        if (!validMerkleRoot) {
+            throw new IllegalArgumentException("Block Merkle root does not match its transactions");
+        }
+        checkCoinbase(block);
+        checkDuplicates(block);
+        // The block was just checked against the tip, so the watermark moves with it
+        // as long as everything below was already validated
+        boolean contiguous = validatedHeight == latestBlock.getIndex();
+        int newValidatedHeight = contiguous ? block.getIndex() : validatedHeight;
+        long newTotal = totalTransactions + block.getTransactions().size();
+        store.append(block, newValidatedHeight, newTotal);
+        validatedHeight = newValidatedHeight;
+        totalTransactions = newTotal;
+        latestBlock = block;
+        difficulty.append(block);
+        statistics.recordBlock(block.getTransactions().size(), block.getTimestamp());
+        mempool.removeAll(block.getTransactions());  // Only what was mined leaves the mempool
+    }
+
+    // Blocks arrive from peers unauthenticated, so the coinbase may claim no more than the
+    // configured reward plus the fees of the transactions it is mined with
+    private void checkCoinbase(Block block) {
+        List<Transaction> transactions = block.getTransactions();
+        if (transactions.isEmpty() || !transactions.get(0).isCoinbase()) {
+            return;
+        }
+        double amount = transactions.get(0).getAmount();
+        if (!Double.isFinite(amount) || amount <= 0) {
+            throw new IllegalArgumentException("Block coinbase amount " + amount + " is not a positive number");
+        }
+        double fees = 0;
+        for (int i = 1; i < transactions.size(); i++) {
+            fees += transactions.get(i).getFee();
+        }
+        // Written so that a NaN fee rejects the block rather than passing the comparison
+        if (!(amount <= blockReward + fees)) {
+            throw new IllegalArgumentException("Block coinbase claims " + amount
+                    + ", the reward plus fees is " + (blockReward + fees));
+        }
+    }
+
+    // The transaction index maps each hash to one location, so a hash may appear only once in
+    // the chain. Gossiped blocks never pass through admit(), so this is checked for every block.
+    private void checkDuplicates(Block block) {
+        Set<String> hashes = new HashSet<>();
+        for (Transaction tx : block.getTransactions()) {
+            String hash = tx.calculateHash();
+            if (!hashes.add(hash)) {
+                throw new IllegalArgumentException("Block contains transaction " + hash + " more than once");
+            }
+            if (containsTransaction(hash)) {
+                throw new IllegalArgumentException("Block contains transaction " + hash + " that is already on the chain");
+            }
+        }
+    }
+
+    // Records the time since start and returns the current time for the next phase
+    private static long record(Timer timer, long start) {
+        long now = System.nanoTime();
+        if (timer != null) {
+            timer.record(now - start, TimeUnit.NANOSECONDS);
+        }
+        return now;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        signatureTimer = validationTimer("signatures", registry);
+        proofOfWorkTimer = validationTimer("proofOfWork", registry);
+        merkleTimer = validationTimer("merkle", registry);
+        appendTimer = Timer.builder("block.append")
+                .description("Validating, storing and indexing an incoming block")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("chain.height", this, chain -> chain.latestBlock.getIndex())
+                .description("Height of the chain tip")
+                .register(registry);
+    }
+
+    private static Timer validationTimer(String phase, MeterRegistry registry) {
+        return Timer.builder("block.validation")
+                .description("Time spent on each check of an incoming block")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry);
     }
 
     public Block getLatestBlock() {
-        return chain.get(chain.size() - 1);
+        return latestBlock;
+    }
+
+    public Block getBlock(int index) {
+        if (index < 0 || index > latestBlock.getIndex()) {
+            return null;
+        }
+        return store.getBlock(index);
+    }
+
+    public int getLength() {
+        return latestBlock.getIndex() + 1;
     }
 
+    // Constant time once the watermark has caught up with the tip; only blocks above the
+    // watermark are checked. Use ChainAuditor for a full re-verification from genesis.
     public boolean isValid() {
-        for (int i = 1; i < chain.size(); i++) {
-            Block prev = chain.get(i - 1);
-            Block curr = chain.get(i);
-            if (!curr.getPreviousHash().equals(prev.getHash()) ||
-                !curr.getHash().equals(curr.calculateHash())) {
-                return false;
+        if (invalidHeight >= 0) {
+            return false;
+        }
+        if (validatedHeight < latestBlock.getIndex()) {
+            catchUp();
+        }
+        return invalidHeight < 0;
+    }
+
+    private synchronized void catchUp() {
+        int tip = latestBlock.getIndex();
+        Block prev = getBlock(validatedHeight);
+        for (int height = validatedHeight + 1; height <= tip; height++) {
+            Block curr = getBlock(height);
+            if (!verifyBlock(prev, curr)) {
+                invalidHeight = height;
+                logger.warn("Chain validation failed at height {}", height);
+                break;
             }
+            validatedHeight = height;
+            prev = curr;
+        }
+        store.saveValidatedHeight(validatedHeight);
+    }
+
+    // Structural check of a block against its parent: linkage, proof of work and Merkle root.
+    // The proof of work is checked against the block's own target, which must be no easier than
+    // Target.MAX; that it was the retargeted one is enforced when the block is appended.
+    public boolean verifyBlock(Block prev, Block curr) {
+        return curr != null && prev != null
+                && curr.getIndex() == prev.getIndex() + 1
+                && curr.getPreviousHash().equals(prev.getHash())
+                && curr.hasValidProofOfWork()
+                && curr.getTarget().compareTo(Target.MAX) <= 0
+                && curr.hasValidMerkleRoot();
+    }
+
+    // Result of a full audit: the watermark moves to the audited tip, or the chain is marked invalid
+    synchronized void recordAudit(int auditedTip, int firstInvalidHeight) {
+        if (firstInvalidHeight >= 0) {
+            invalidHeight = firstInvalidHeight;
+            // Genesis is never audited, so the watermark cannot drop below it
+            validatedHeight = Math.max(0, Math.min(validatedHeight, firstInvalidHeight - 1));
+        } else {
+            invalidHeight = -1;
+            validatedHeight = Math.max(validatedHeight, auditedTip);
         }
-        return true;
+        store.saveValidatedHeight(validatedHeight);
     }
 
+    public int getValidatedHeight() {
+        return validatedHeight;
+    }
+
+    public DifficultyAdjuster getDifficulty() {
+        return difficulty;
+    }
+
+    // Read-only view of the chain; blocks are loaded from the store as they are accessed
     public List<Block> getChain() {
         return chain;
     }
 
-    public void addTransaction(Transaction tx) {
-        pendingTransactions.add(tx);
+    // Coinbase transactions only enter the chain inside a mined block
+    public Mempool.AdmissionResult addTransaction(Transaction tx) {
+        if (tx.isCoinbase() || !verifier.verify(tx)) {
+            mempool.recordRejected(Mempool.AdmissionResult.INVALID_SIGNATURE);
+            return Mempool.AdmissionResult.INVALID_SIGNATURE;
+        }
+        return admit(tx);
+    }
+
+    // Verify the whole batch in parallel, then admit the valid transactions
+    public List<Mempool.AdmissionResult> addTransactions(List<Transaction> transactions) {
+        boolean[] valid = verifier.verifyTransactions(transactions);
+        List<Mempool.AdmissionResult> results = new ArrayList<>(transactions.size());
+        for (int i = 0; i < valid.length; i++) {
+            if (valid[i] && !transactions.get(i).isCoinbase()) {
+                results.add(admit(transactions.get(i)));
+            } else {
+                mempool.recordRejected(Mempool.AdmissionResult.INVALID_SIGNATURE);
+                results.add(Mempool.AdmissionResult.INVALID_SIGNATURE);
+            }
+        }
+        return results;
+    }
+
+    // Transactions that could never be mined are turned away here instead of waiting in the pool.
+    // Missing fields are caught first, since sizing encodes the transaction. The hash covers
+    // only sender, recipient, amount and fee, so a repeat of a mined payment has to differ in
+    // one of them.
+    private Mempool.AdmissionResult admit(Transaction tx) {
+        Mempool.AdmissionResult result;
+        if (!tx.isWellFormed()) {
+            result = Mempool.AdmissionResult.MALFORMED;
+        } else if (Mempool.encodedSize(tx) > maxTransactionBytes) {
+            result = Mempool.AdmissionResult.TOO_LARGE;
+        } else if (containsTransaction(tx.calculateHash())) {
+            result = Mempool.AdmissionResult.ALREADY_MINED;
+        } else {
+            return accept(tx);
+        }
+        mempool.recordRejected(result);
+        return result;
+    }
+
+    private Mempool.AdmissionResult accept(Transaction tx) {
+        Mempool.AdmissionResult result = mempool.add(tx);
+        if (result == Mempool.AdmissionResult.ACCEPTED) {
+            for (BlockchainListener listener : listeners) {
+                listener.onTransactionAdded(tx);
+            }
+        }
+        return result;
+    }
+
+    public boolean containsTransaction(String hash) {
+        return store.findTransaction(hash) != null;
+    }
+
+    // O(1) lookup through the transaction hash index
+    public IndexedTransaction findTransaction(String hash) {
+        TransactionLocation location = store.findTransaction(hash);
+        return location != null ? resolve(location) : null;
+    }
+
+    public long getAddressTransactionCount(String address) {
+        return store.getAddressTransactionCount(address);
+    }
+
+    // Newest first; reads only the requested page of the address index
+    public List<IndexedTransaction> getAddressTransactions(String address, long offset, int limit) {
+        List<IndexedTransaction> page = new ArrayList<>();
+        for (TransactionLocation location : store.findAddressTransactions(address, offset, limit)) {
+            page.add(resolve(location));
+        }
+        return page;
+    }
+
+    private IndexedTransaction resolve(TransactionLocation location) {
+        Block block = getBlock(location.getHeight());
+        if (block == null) {
+            throw new StorageException("Index points to missing block " + location.getHeight());
+        }
+        return new IndexedTransaction(block.getTransactions().get(location.getPosition()), block, location.getPosition());
     }
 
     public List<Transaction> getPendingTransactions() {
-        return new ArrayList<>(pendingTransactions);
+        return mempool.getTransactions();
+    }
+
+    public int getPendingCount() {
+        return mempool.size();
+    }
+
+    private class ChainView extends AbstractList<Block> implements RandomAccess {
+        @Override
+        public Block get(int index) {
+            Block block = getBlock(index);
+            if (block == null) {
+                throw new IndexOutOfBoundsException("Block index out of range: " + index);
+            }
+            return block;
+        }
+
+        @Override
+        public int size() {
+            return getLength();
+        }
     }
 }
@@ -0,0 +1,11 @@
+package com.jestogp9te.blockchain;
+
+// Callbacks for components that react to chain and mempool changes
+public interface BlockchainListener {
+
+    default void onBlockAdded(Block block) {
+    }
+
+    default void onTransactionAdded(Transaction tx) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.jestogp9te.blockchain;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// On-demand full verification of the chain from genesis. Height ranges are split into
+// segments that are verified in parallel on a fork-join pool; each segment loads the
+// block just below it so parent links across segment boundaries are checked too.
+@Component
+public class ChainAuditor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChainAuditor.class);
+
+    // Blocks verified by one leaf task
+    private static final int SEGMENT_SIZE = 256;
+
+    private final Blockchain blockchain;
+    private final SignatureVerifier verifier;
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicInteger firstInvalid = new AtomicInteger(-1);
+    private volatile AuditStatus.State state = AuditStatus.State.IDLE;
+    private volatile long total;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    public ChainAuditor(Blockchain blockchain, SignatureVerifier verifier) {
+        this.blockchain = blockchain;
+        this.verifier = verifier;
+    }
+
+    // Starts an audit unless one is already running; returns the current status either way
+    public synchronized AuditStatus start() {
+        if (state == AuditStatus.State.RUNNING) {
+            return getStatus();
+        }
+        int tip = blockchain.getLatestBlock().getIndex();
+        checked.set(0);
+        firstInvalid.set(-1);
+        total = tip;
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        error = null;
+        state = AuditStatus.State.RUNNING;
+        logger.info("Starting full chain audit of {} blocks", tip);
+
+        pool.execute(() -> {
+            try {
+                pool.invoke(new SegmentTask(1, tip));
+                finish(tip);
+            } catch (RuntimeException e) {
+                // An error such as a failed read says nothing about the chain itself, so the
+                // validation watermark is left alone
+                logger.error("Chain audit aborted", e);
+                abort(e);
+            }
+        });
+        return getStatus();
+    }
+
+    private synchronized void finish(int tip) {
+        int invalid = firstInvalid.get();
+        blockchain.recordAudit(tip, invalid);
+        finishedAt = System.currentTimeMillis();
+        state = invalid < 0 ? AuditStatus.State.PASSED : AuditStatus.State.FAILED;
+        logger.info("Chain audit {} after {} ms", state, finishedAt - startedAt);
+    }
+
+    private synchronized void abort(RuntimeException e) {
+        error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        finishedAt = System.currentTimeMillis();
+        state = AuditStatus.State.ABORTED;
+    }
+
+    public AuditStatus getStatus() {
+        return new AuditStatus(state, checked.get(), total, firstInvalid.get(), startedAt, finishedAt, error);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private boolean verifySegment(int from, int to) {
+        Block prev = blockchain.getBlock(from - 1);
+        for (int height = from; height <= to; height++) {
+            Block curr = blockchain.getBlock(height);
+            if (!blockchain.verifyBlock(prev, curr) || !hasValidSignatures(curr)) {
+                firstInvalid.accumulateAndGet(height, (a, b) -> a < 0 ? b : Math.min(a, b));
+                return false;
+            }
+            checked.incrementAndGet();
+            prev = curr;
+        }
+        return true;
+    }
+
+    // Segments already run in parallel, so signatures are checked inline rather than on the verifier pool
+    private boolean hasValidSignatures(Block block) {
+        List<Transaction> signed;
+        try {
+            signed = Blockchain.signedTransactions(block);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        for (Transaction tx : signed) {
+            if (!verifier.verify(tx)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class SegmentTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        private SegmentTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < SEGMENT_SIZE) {
+                if (from <= to) {
+                    verifySegment(from, to);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SegmentTask(from, mid), new SegmentTask(mid + 1, to));
+        }
+    }
+}
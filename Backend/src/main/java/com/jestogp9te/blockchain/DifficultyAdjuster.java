@@ -0,0 +1,163 @@
+package com.jestogp9te.blockchain;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+// Retargets proof of work from a moving window of recent blocks with a linearly weighted
+// moving average: the next target is the average target of the window scaled by the window's
+// solve times over the target interval, with recent solve times weighted more. Block
+// production settles at the target interval whatever hash rate is mining, and follows a change
+// in hash rate within about one window. Single solve times are clamped to six target intervals
+// and the target moves by at most a factor of two per block, so a few odd timestamps cannot
+// swing it far. Genesis has a fixed timestamp and never counts; until the window has filled,
+// blocks are mined at the initial target.
+//
+// Not thread-safe: Blockchain updates it under its chain lock; the getters are read freely.
+public class DifficultyAdjuster {
+
+    private static final int MAX_ADJUSTMENT = 2;
+    private static final int MAX_SOLVE_TIME_INTERVALS = 6;
+
+    // Blocks whose timestamps decide the earliest timestamp the next block may carry
+    private static final int MEDIAN_TIME_SPAN = 11;
+
+    // How far ahead of this node's clock a block timestamp may be
+    private static final long MAX_FUTURE_DRIFT_MS = 2 * 60 * 1000L;
+
+    private final int initialBits;
+    private final int window;
+    private final long targetIntervalMs;
+    private final ArrayDeque<Stamp> recent = new ArrayDeque<>();
+    private volatile int nextBits;
+    private volatile long averageIntervalMs;
+
+    public DifficultyAdjuster(int initialZeroBits, int window, long targetIntervalMs) {
+        if (window < 1 || targetIntervalMs < 1) {
+            throw new IllegalArgumentException("Retarget window and target interval must be positive");
+        }
+        this.initialBits = Target.toCompact(Target.zeroBitsTarget(initialZeroBits).min(Target.MAX));
+        this.window = window;
+        this.targetIntervalMs = targetIntervalMs;
+        this.nextBits = initialBits;
+    }
+
+    // Seeds the window with the most recent blocks, oldest first
+    void reset(List<Block> blocks) {
+        recent.clear();
+        for (Block block : blocks) {
+            push(block);
+        }
+        nextBits = retarget();
+    }
+
+    void append(Block block) {
+        push(block);
+        nextBits = retarget();
+    }
+
+    // Blocks that fail throw IllegalArgumentException: the timestamp must not be before the
+    // median of the last blocks, which stops a miner from dragging the difficulty down with
+    // backdated blocks, nor too far in the future
+    void checkTimestamp(Block block, long now) {
+        if (block.getTimestamp() > now + MAX_FUTURE_DRIFT_MS) {
+            throw new IllegalArgumentException("Block timestamp is too far in the future");
+        }
+        long median = medianTimePast();
+        if (block.getTimestamp() < median) {
+            throw new IllegalArgumentException("Block timestamp is before the median of recent blocks");
+        }
+    }
+
+    // Blocks the adjuster needs to see at startup
+    int span() {
+        return Math.max(window + 1, MEDIAN_TIME_SPAN);
+    }
+
+    public int getNextBits() {
+        return nextBits;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public long getTargetIntervalMs() {
+        return targetIntervalMs;
+    }
+
+    // Average interval over the most recent blocks, or 0 with fewer than two
+    public long getAverageIntervalMs() {
+        return averageIntervalMs;
+    }
+
+    private void push(Block block) {
+        if (block.getIndex() == 0) {
+            return;
+        }
+        recent.addLast(new Stamp(block.getTimestamp(), block.getTarget()));
+        while (recent.size() > span()) {
+            recent.removeFirst();
+        }
+        if (recent.size() > 1) {
+            averageIntervalMs = (recent.peekLast().timestamp - recent.peekFirst().timestamp) / (recent.size() - 1);
+        }
+    }
+
+    private int retarget() {
+        if (recent.size() < window + 1) {
+            return initialBits;
+        }
+        // The last window + 1 blocks give window solve times, each mined at the later block's target
+        Stamp[] stamps = new Stamp[window + 1];
+        Iterator<Stamp> it = recent.descendingIterator();
+        for (int i = window; i >= 0; i--) {
+            stamps[i] = it.next();
+        }
+        long maxSolveTime = MAX_SOLVE_TIME_INTERVALS * targetIntervalMs;
+        long weightedSolveTime = 0;
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 1; i <= window; i++) {
+            long solveTime = stamps[i].timestamp - stamps[i - 1].timestamp;
+            solveTime = Math.max(-maxSolveTime, Math.min(maxSolveTime, solveTime));
+            weightedSolveTime += i * solveTime;
+            sum = sum.add(stamps[i].target);
+        }
+        weightedSolveTime = Math.max(1, weightedSolveTime);
+        long weights = (long) window * (window + 1) / 2;
+
+        BigInteger average = sum.divide(BigInteger.valueOf(window));
+        BigInteger next = average.multiply(BigInteger.valueOf(weightedSolveTime))
+                .divide(BigInteger.valueOf(weights * targetIntervalMs));
+        BigInteger last = stamps[window].target;
+        BigInteger factor = BigInteger.valueOf(MAX_ADJUSTMENT);
+        next = next.max(last.divide(factor)).min(last.multiply(factor)).min(Target.MAX);
+        return Target.toCompact(next.max(BigInteger.ONE));
+    }
+
+    private long medianTimePast() {
+        int count = Math.min(MEDIAN_TIME_SPAN, recent.size());
+        if (count == 0) {
+            return Long.MIN_VALUE;
+        }
+        long[] timestamps = new long[count];
+        Iterator<Stamp> it = recent.descendingIterator();
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = it.next().timestamp;
+        }
+        Arrays.sort(timestamps);
+        return timestamps[count / 2];
+    }
+
+    private static final class Stamp {
+        private final long timestamp;
+        private final BigInteger target;
+
+        private Stamp(long timestamp, BigInteger target) {
+            this.timestamp = timestamp;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.jestogp9te.blockchain;
+
+// A confirmed transaction together with the block that contains it
+public class IndexedTransaction {
+    private final String hash;
+    private final Transaction transaction;
+    private final int blockHeight;
+    private final String blockHash;
+    private final int position;
+
+    public IndexedTransaction(Transaction transaction, Block block, int position) {
+        this.hash = transaction.calculateHash();
+        this.transaction = transaction;
+        this.blockHeight = block.getIndex();
+        this.blockHash = block.getHash();
+        this.position = position;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public int getBlockHeight() {
+        return blockHeight;
+    }
+
+    public String getBlockHash() {
+        return blockHash;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,154 @@
+package com.jestogp9te.blockchain;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// EC key pairs generated ahead of wallet creation. SecureRandom.getInstanceStrong() can block
+// for seconds when the system is short of entropy, so keys come from a DRBG instead: the strong
+// source only seeds it, on the refill thread, and reseeds it every wallet.reseedInterval keys.
+// Taking a key is a queue poll; when the pool has run dry the key is generated on the calling
+// thread from the same DRBG, which is slower but never waits for entropy.
+@Component
+public class KeyPairPool implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyPairPool.class);
+
+    private static final int KEY_SIZE = 256;
+    private static final int SEED_BYTES = 32;
+    private static final long FAILURE_BACKOFF_MS = 1000;
+
+    private final BlockingQueue<KeyPair> pool;
+    private final int reseedInterval;
+    private final SecureRandom random;
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private Thread refiller;
+
+    public KeyPairPool(WalletProperties properties) {
+        this.pool = properties.getKeyPoolSize() > 0 ? new ArrayBlockingQueue<>(properties.getKeyPoolSize()) : null;
+        this.reseedInterval = Math.max(1, properties.getReseedInterval());
+        try {
+            this.random = SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(
+                    KEY_SIZE, DrbgParameters.Capability.RESEED_ONLY,
+                    "jestogp9te-wallet".getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new WalletException("DRBG is not available", e);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (pool == null) {
+            return;
+        }
+        refiller = new Thread(this::refill, "key-pool-refill");
+        refiller.setDaemon(true);
+        refiller.start();
+    }
+
+    // A key pair nobody else has been given
+    public KeyPair take() {
+        KeyPair keyPair = pool != null ? pool.poll() : null;
+        if (keyPair == null) {
+            misses.increment();
+            keyPair = generate();
+        }
+        return keyPair;
+    }
+
+    private void refill() {
+        long sinceReseed = 0;
+        boolean seeded = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (!seeded || sinceReseed >= reseedInterval) {
+                    reseed();
+                    seeded = true;
+                    sinceReseed = 0;
+                }
+                KeyPair keyPair = generate();
+                generated.increment();
+                sinceReseed++;
+                pool.put(keyPair);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Failed to refill the key pool: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(FAILURE_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // The only place that may wait for entropy, and only ever on the refill thread
+    private void reseed() throws GeneralSecurityException {
+        long start = System.nanoTime();
+        random.setSeed(SecureRandom.getInstanceStrong().generateSeed(SEED_BYTES));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        if (elapsedMs > 100) {
+            logger.warn("Reseeding the key pool took {} ms waiting for entropy", elapsedMs);
+        } else {
+            logger.debug("Reseeded the key pool in {} ms", elapsedMs);
+        }
+    }
+
+    private KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(KEY_SIZE, random);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new WalletException("Failed to generate key pair", e);
+        }
+    }
+
+    public int size() {
+        return pool != null ? pool.size() : 0;
+    }
+
+    public int capacity() {
+        return pool != null ? pool.size() + pool.remainingCapacity() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("wallet.keypool.size", this, KeyPairPool::size)
+                .description("Pre-generated key pairs ready to hand out")
+                .register(registry);
+        Gauge.builder("wallet.keypool.capacity", this, KeyPairPool::capacity)
+                .description("Maximum number of pre-generated key pairs")
+                .register(registry);
+        FunctionCounter.builder("wallet.keypool.generated", generated, LongAdder::sum)
+                .description("Key pairs generated by the refill thread")
+                .register(registry);
+        FunctionCounter.builder("wallet.keypool.misses", misses, LongAdder::sum)
+                .description("Key pairs generated on request because the pool was empty")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refiller != null) {
+            refiller.interrupt();
+        }
+    }
+}
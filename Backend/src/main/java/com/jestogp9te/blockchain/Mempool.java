@@ -0,0 +1,215 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.monitoring.NodeStatistics;
+import com.jestogp9te.persistence.SerializationUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Pending transaction pool. Entries are deduplicated by transaction hash and kept in a
+// concurrent skip list ordered by fee rate, so block assembly can walk the best N without
+// sorting and eviction can drop the cheapest entry when the byte budget is exceeded.
+// No global lock: insertion is a putIfAbsent plus a skip list add.
+@Component
+public class Mempool implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(Mempool.class);
+
+    // Highest fee rate first; equal rates keep arrival order
+    private static final Comparator<Entry> PRIORITY = Comparator
+            .comparingDouble((Entry e) -> e.feeRate).reversed()
+            .thenComparingLong(e -> e.sequence);
+
+    // TOO_LARGE and ALREADY_MINED are decided by Blockchain before the pool is consulted
+    public enum AdmissionResult { ACCEPTED, DUPLICATE, POOL_FULL, INVALID_SIGNATURE, TOO_LARGE, ALREADY_MINED, MALFORMED }
+
+    private final ConcurrentHashMap<String, Entry> byHash = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> byPriority = new ConcurrentSkipListSet<>(PRIORITY);
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger count = new AtomicInteger();
+    private final LongAdder[] admissions = new LongAdder[AdmissionResult.values().length];
+    private final LongAdder evictions = new LongAdder();
+    private final long maxBytes;
+    private final NodeStatistics statistics;
+
+    @Autowired
+    public Mempool(MempoolProperties properties, NodeStatistics statistics) {
+        this(properties.getMaxBytes(), statistics);
+    }
+
+    public Mempool(long maxBytes) {
+        this(maxBytes, new NodeStatistics());
+    }
+
+    public Mempool(long maxBytes, NodeStatistics statistics) {
+        this.maxBytes = maxBytes;
+        this.statistics = statistics;
+        for (int i = 0; i < admissions.length; i++) {
+            admissions[i] = new LongAdder();
+        }
+    }
+
+    public AdmissionResult add(Transaction tx) {
+        AdmissionResult result = admit(tx);
+        admissions[result.ordinal()].increment();
+        return result;
+    }
+
+    private AdmissionResult admit(Transaction tx) {
+        String hash = tx.calculateHash();
+        Entry entry = new Entry(tx, hash, encodedSize(tx), sequence.incrementAndGet());
+        if (byHash.putIfAbsent(hash, entry) != null) {
+            return AdmissionResult.DUPLICATE;
+        }
+        byPriority.add(entry);
+        changeCount(1);
+        if (bytes.addAndGet(entry.size) > maxBytes) {
+            evict();
+            if (byHash.get(hash) != entry) {
+                logger.debug("Mempool full, rejected transaction {}", hash);
+                return AdmissionResult.POOL_FULL;
+            }
+        }
+        return AdmissionResult.ACCEPTED;
+    }
+
+    // Whoever removes an entry from byHash also releases its bytes and count, so concurrent
+    // evictions and removals never double-count
+    private void evict() {
+        while (bytes.get() > maxBytes) {
+            Entry lowest = byPriority.pollLast();
+            if (lowest == null) {
+                return;
+            }
+            if (byHash.remove(lowest.hash, lowest)) {
+                bytes.addAndGet(-lowest.size);
+                changeCount(-1);
+                evictions.increment();
+                logger.debug("Evicted transaction {} at fee rate {}", lowest.hash, lowest.feeRate);
+            }
+        }
+    }
+
+    // Drop the transactions that made it into a block; everything else stays pending
+    public void removeAll(Collection<Transaction> transactions) {
+        for (Transaction tx : transactions) {
+            Entry entry = byHash.remove(tx.calculateHash());
+            if (entry != null) {
+                byPriority.remove(entry);
+                bytes.addAndGet(-entry.size);
+                changeCount(-1);
+            }
+        }
+    }
+
+    public boolean contains(String hash) {
+        return byHash.containsKey(hash);
+    }
+
+    // Best transactions by fee rate, walking the priority order without sorting
+    public List<Transaction> best(int limit) {
+        List<Transaction> result = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Entry> it = byPriority.iterator();
+        while (result.size() < limit && it.hasNext()) {
+            result.add(it.next().tx);
+        }
+        return result;
+    }
+
+    // Walks the pool from the highest fee rate down until the visitor returns false
+    public void forEachByPriority(Visitor visitor) {
+        for (Entry entry : byPriority) {
+            if (!visitor.visit(entry.tx, entry.hash, entry.size)) {
+                return;
+            }
+        }
+    }
+
+    // Size a transaction takes up in the pool and in a block
+    public static int encodedSize(Transaction tx) {
+        return SerializationUtil.serialize(tx).length;
+    }
+
+    public List<Transaction> getTransactions() {
+        return best(Integer.MAX_VALUE);
+    }
+
+    private void changeCount(int delta) {
+        count.addAndGet(delta);
+        statistics.adjustPendingTransactions(delta);
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    // Outcomes decided before the pool sees the transaction, e.g. a failed signature check
+    void recordRejected(AdmissionResult result) {
+        admissions[result.ordinal()].increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mempool.size", this, Mempool::size)
+                .description("Pending transactions")
+                .register(registry);
+        Gauge.builder("mempool.bytes", this, Mempool::getBytes)
+                .description("Encoded size of the pending transactions")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("mempool.max.bytes", this, Mempool::getMaxBytes).baseUnit("bytes").register(registry);
+        for (AdmissionResult result : AdmissionResult.values()) {
+            FunctionCounter.builder("mempool.admissions", admissions[result.ordinal()], LongAdder::sum)
+                    .description("Transactions offered to the mempool by outcome")
+                    .tag("result", result.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("mempool.evictions", evictions, LongAdder::sum)
+                .description("Pending transactions dropped to stay within the byte budget")
+                .register(registry);
+    }
+
+    public interface Visitor {
+        boolean visit(Transaction tx, String hash, int size);
+    }
+
+    private static final class Entry {
+        private final Transaction tx;
+        private final String hash;
+        private final int size;
+        private final long sequence;
+        private final double feeRate;
+
+        private Entry(Transaction tx, String hash, int size, long sequence) {
+            this.tx = tx;
+            this.hash = hash;
+            this.size = size;
+            this.sequence = sequence;
+            this.feeRate = tx.getFee() / size;
+        }
+    }
+}
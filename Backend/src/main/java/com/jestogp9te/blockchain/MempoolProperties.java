@@ -0,0 +1,21 @@
+package com.jestogp9te.blockchain;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "mempool")
+public class MempoolProperties {
+
+    // Upper bound on the encoded size of all pending transactions
+    private long maxBytes = 64L * 1024 * 1024;
+
+    // Getters and Setters
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+}
@@ -0,0 +1,45 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.util.HashUtil;
+import java.util.ArrayList;
+import java.util.List;
+
+// Inclusion proof for one transaction: the sibling hashes from the leaf up to the Merkle root
+public class MerkleProof {
+    private final String transactionHash;
+    private final int index;
+    private final List<String> siblings;
+    private final String merkleRoot;
+
+    public MerkleProof(String transactionHash, int index, List<String> siblings, String merkleRoot) {
+        this.transactionHash = transactionHash;
+        this.index = index;
+        this.siblings = siblings;
+        this.merkleRoot = merkleRoot;
+    }
+
+    public String getTransactionHash() {
+        return transactionHash;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<String> getSiblings() {
+        return siblings;
+    }
+
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    public boolean verify() {
+        List<byte[]> siblingBytes = new ArrayList<>(siblings.size());
+        for (String sibling : siblings) {
+            siblingBytes.add(HashUtil.fromHex(sibling));
+        }
+        byte[] root = MerkleTree.computeRoot(HashUtil.fromHex(transactionHash), index, siblingBytes);
+        return HashUtil.toHex(root).equals(merkleRoot);
+    }
+}
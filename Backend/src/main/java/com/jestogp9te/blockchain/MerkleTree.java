@@ -1,27 +1,154 @@
 package com.jestogp9te.blockchain;
 
 import com.jestogp9te.util.HashUtil;
+import java.security.DigestException;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
+// Binary Merkle tree over raw 32-byte transaction hashes. Each level is stored as one flat
+// byte array; an odd node at the end of a level is paired with itself.
 public class MerkleTree {
 
+    private static final int HASH = HashUtil.HASH_LENGTH;
+
+    // Levels with at least this many nodes are hashed in parallel chunks of CHUNK_SIZE pairs
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final int CHUNK_SIZE = 256;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(HashUtil::newSha256);
+
+    private final byte[][] levels;
+    private final int[] counts;
+
+    private MerkleTree(byte[] leaves, int leafCount) {
+        List<byte[]> levelList = new ArrayList<>();
+        List<Integer> countList = new ArrayList<>();
+        byte[] level = leaves;
+        int count = leafCount;
+        levelList.add(level);
+        countList.add(count);
+        while (count > 1) {
+            int parents = (count + 1) / 2;
+            byte[] next = new byte[parents * HASH];
+            hashLevel(level, count, next, parents);
+            level = next;
+            count = parents;
+            levelList.add(level);
+            countList.add(count);
+        }
+        this.levels = levelList.toArray(new byte[0][]);
+        this.counts = countList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static MerkleTree fromTransactions(List<Transaction> transactions) {
+        int count = transactions.size();
+        if (count == 0) {
+            return new MerkleTree(new byte[HASH], 1);
+        }
+        byte[] leaves = new byte[count * HASH];
+        IntStream indices = IntStream.range(0, count);
+        if (count >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> System.arraycopy(transactions.get(i).calculateHashBytes(), 0, leaves, i * HASH, HASH));
+        return new MerkleTree(leaves, count);
+    }
+
     public static String getMerkleRoot(List<Transaction> transactions) {
-        List<String> hashes = new ArrayList<>();
-        for (Transaction tx : transactions) {
-            hashes.add(tx.calculateHash());
+        return fromTransactions(transactions).getRootHex();
+    }
+
+    public byte[] getRoot() {
+        byte[] root = new byte[HASH];
+        System.arraycopy(levels[levels.length - 1], 0, root, 0, HASH);
+        return root;
+    }
+
+    public String getRootHex() {
+        return HashUtil.toHex(getRoot());
+    }
+
+    public int getLeafCount() {
+        return counts[0];
+    }
+
+    public int indexOf(byte[] leafHash) {
+        byte[] leaves = levels[0];
+        for (int i = 0; i < counts[0]; i++) {
+            if (Arrays.equals(leaves, i * HASH, (i + 1) * HASH, leafHash, 0, HASH)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Sibling hashes from leaf to root: O(log n) hashes the client needs to recompute the root
+    public MerkleProof getProof(int leafIndex) {
+        if (leafIndex < 0 || leafIndex >= counts[0]) {
+            throw new IllegalArgumentException("Leaf index out of range");
+        }
+        List<String> siblings = new ArrayList<>();
+        int position = leafIndex;
+        for (int level = 0; level < levels.length - 1; level++) {
+            int sibling = (position % 2 == 0) ? Math.min(position + 1, counts[level] - 1) : position - 1;
+            siblings.add(HashUtil.toHex(slice(levels[level], sibling)));
+            position /= 2;
+        }
+        return new MerkleProof(HashUtil.toHex(slice(levels[0], leafIndex)), leafIndex, siblings, getRootHex());
+    }
+
+    // Recompute the root from a leaf and its proof
+    public static byte[] computeRoot(byte[] leafHash, int leafIndex, List<byte[]> siblings) {
+        MessageDigest digest = DIGEST.get();
+        byte[] current = leafHash.clone();
+        int position = leafIndex;
+        for (byte[] sibling : siblings) {
+            if (position % 2 == 0) {
+                digest.update(current);
+                digest.update(sibling);
+            } else {
+                digest.update(sibling);
+                digest.update(current);
+            }
+            current = digest.digest();
+            position /= 2;
+        }
+        return current;
+    }
+
+    private static void hashLevel(byte[] level, int count, byte[] next, int parents) {
+        if (parents < PARALLEL_THRESHOLD) {
+            hashPairs(level, count, next, 0, parents);
+            return;
         }
+        int chunks = (parents + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            hashPairs(level, count, next, from, Math.min(from + CHUNK_SIZE, parents));
+        });
+    }
 
-        while (hashes.size() > 1) {
-            List<String> newHashes = new ArrayList<>();
-            for (int i = 0; i < hashes.size(); i += 2) {
-                String left = hashes.get(i);
-                String right = (i + 1 < hashes.size()) ? hashes.get(i + 1) : left;
-                newHashes.add(HashUtil.sha256(left + right));
+    private static void hashPairs(byte[] level, int count, byte[] next, int from, int to) {
+        MessageDigest digest = DIGEST.get();
+        try {
+            for (int parent = from; parent < to; parent++) {
+                int left = parent * 2;
+                int right = Math.min(left + 1, count - 1);
+                digest.update(level, left * HASH, HASH);
+                digest.update(level, right * HASH, HASH);
+                digest.digest(next, parent * HASH, HASH);
             }
-            hashes = newHashes;
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
         }
+    }
 
-        return hashes.size() == 1 ? hashes.get(0) : "";
+    private static byte[] slice(byte[] level, int index) {
+        byte[] hash = new byte[HASH];
+        System.arraycopy(level, index * HASH, hash, 0, HASH);
+        return hash;
     }
 }
@@ -0,0 +1,182 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.util.HashUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MiningEngine implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MiningEngine.class);
+
+    // Highest nonce value as an unsigned 32-bit counter
+    private static final long MAX_NONCE = 0xFFFFFFFFL;
+
+    // Attempts a worker accumulates locally before publishing them to the shared counter
+    private static final int REPORT_INTERVAL = 4096;
+
+    private final int workers;
+    private final ExecutorService executor;
+    private volatile MiningResult lastResult;
+    private volatile Timer blockTimer;
+    private volatile DistributionSummary attemptsSummary;
+
+    @Autowired
+    public MiningEngine(MiningProperties properties) {
+        this(properties.getThreads());
+    }
+
+    public MiningEngine(int threads) {
+        this.workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(workers, new MinerThreadFactory());
+        logger.info("Mining engine started with {} worker threads", workers);
+    }
+
+    // Search for a valid nonce on every worker; returns once one worker wins and the rest have stopped
+    public MiningResult mine(Block block) {
+        return await(start(block));
+    }
+
+    private MiningResult await(MiningTask task) {
+        try {
+            task.await();
+        } catch (InterruptedException e) {
+            task.cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Mining interrupted", e);
+        }
+        MiningResult result = task.getResult();
+        if (result == null) {
+            throw new IllegalStateException("Mining failed", task.getFailure());
+        }
+        return result;
+    }
+
+    // Starts the search and returns at once; the task can be awaited or cancelled, e.g. when a
+    // competing block makes the template stale. Tasks run one after another on the same workers.
+    public MiningTask start(Block block) {
+        return start(block, Target.toBytes(block.getTarget()));
+    }
+
+    private MiningTask start(Block block, byte[] target) {
+        MiningTask task = new MiningTask(this, block, workers);
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            executor.execute(() -> {
+                try {
+                    search(block, target, worker, task);
+                } catch (Throwable t) {
+                    task.fail(t);
+                } finally {
+                    task.workerDone();
+                }
+            });
+        }
+        return task;
+    }
+
+    // Called once by the task when a worker found a solution
+    void onSolved(MiningResult result) {
+        lastResult = result;
+        if (blockTimer != null) {
+            blockTimer.record(result.getElapsedNanos(), TimeUnit.NANOSECONDS);
+            attemptsSummary.record(result.getAttempts());
+        }
+        logger.info("Mined block {} in {} ms: {} attempts at {} H/s on {} workers",
+                result.getBlock().getIndex(), result.getElapsedNanos() / 1_000_000, result.getAttempts(),
+                Math.round(result.getHashesPerSecond()), workers);
+    }
+
+    // Worker w tries nonces w, w + N, w + 2N, ...; once the 32-bit space is exhausted the
+    // timestamp is bumped as an extra nonce, which keeps the workers' search spaces disjoint.
+    // Each worker owns its header, digest and output buffer, so an attempt allocates nothing.
+    private void search(Block block, byte[] target, int worker, MiningTask task) {
+        BlockHeader header = block.header();
+        MessageDigest digest = HashUtil.newSha256();
+        byte[] out = new byte[HashUtil.HASH_LENGTH];
+        long timestamp = block.getTimestamp();
+        int pending = 0;
+        try {
+            while (true) {
+                for (long n = worker; n <= MAX_NONCE; n += workers) {
+                    if (task.isStopped()) {
+                        return;
+                    }
+                    header.setNonce((int) n);
+                    header.hash(digest, out);
+                    pending++;
+                    if (Target.isMetBy(out, target)) {
+                        task.solve(timestamp, (int) n, HashUtil.toHex(out));
+                        return;
+                    }
+                    if (pending == REPORT_INTERVAL) {
+                        task.addAttempts(pending);
+                        pending = 0;
+                    }
+                }
+                timestamp++;
+                header.setTimestamp(timestamp);
+            }
+        } finally {
+            task.addAttempts(pending);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        blockTimer = Timer.builder("mining.block.time")
+                .description("Time to find a valid nonce for a block")
+                .publishPercentileHistogram()
+                .register(registry);
+        attemptsSummary = DistributionSummary.builder("mining.nonce.attempts")
+                .description("Nonce attempts needed per mined block")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("mining.hashrate", this, engine -> {
+                    MiningResult last = engine.lastResult;
+                    return last != null ? last.getHashesPerSecond() : 0;
+                })
+                .description("Hash rate of the last mined block")
+                .baseUnit("hashes/s")
+                .register(registry);
+        Gauge.builder("mining.workers", this, MiningEngine::getWorkers).register(registry);
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public MiningResult getLastResult() {
+        return lastResult;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class MinerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "miner-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.jestogp9te.blockchain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Request to mine a number of blocks, run by MiningService. Jobs are served in submission
+// order and every block this node mines counts toward the oldest unfinished job.
+public class MiningJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    private final long id;
+    private final int blocks;
+    private final long submittedAt = System.currentTimeMillis();
+    private final List<Map<String, Object>> minedBlocks = new ArrayList<>();
+    private final List<Consumer<Map<String, Object>>> subscribers = new CopyOnWriteArrayList<>();
+    private Status status = Status.QUEUED;
+    private long startedAt;
+    private long finishedAt;
+    private long attempts;
+    private int templates;
+    private String error;
+
+    MiningJob(long id, int blocks) {
+        this.id = id;
+        this.blocks = blocks;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+    }
+
+    // Receives a snapshot after every change; the last one has a finished status
+    public void subscribe(Consumer<Map<String, Object>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<Map<String, Object>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    List<Consumer<Map<String, Object>>> getSubscribers() {
+        return subscribers;
+    }
+
+    synchronized boolean start() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    // One template searched on behalf of this job, whether it was solved or abandoned
+    synchronized void recordTemplate(long templateAttempts) {
+        templates++;
+        attempts += templateAttempts;
+    }
+
+    // True once the job has all of its blocks
+    synchronized boolean addBlock(Block block) {
+        Map<String, Object> mined = new LinkedHashMap<>();
+        mined.put("index", block.getIndex());
+        mined.put("hash", block.getHash());
+        mined.put("transactions", block.getTransactions().size());
+        minedBlocks.add(mined);
+        if (minedBlocks.size() < blocks) {
+            return false;
+        }
+        finish(Status.COMPLETED, null);
+        return true;
+    }
+
+    synchronized boolean cancel() {
+        return finish(Status.CANCELLED, null);
+    }
+
+    synchronized void fail(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    private boolean finish(Status finalStatus, String message) {
+        if (isFinished()) {
+            return false;
+        }
+        status = finalStatus;
+        error = message;
+        finishedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put("id", id);
+        job.put("status", status);
+        job.put("blocksRequested", blocks);
+        job.put("blocksMined", minedBlocks.size());
+        job.put("minedBlocks", List.copyOf(minedBlocks));
+        job.put("templates", templates);
+        job.put("attempts", attempts);
+        job.put("submittedAt", submittedAt);
+        if (startedAt > 0) {
+            job.put("startedAt", startedAt);
+        }
+        if (finishedAt > 0) {
+            job.put("finishedAt", finishedAt);
+        }
+        if (error != null) {
+            job.put("error", error);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,129 @@
+package com.jestogp9te.blockchain;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "mining")
+public class MiningProperties {
+
+    // Number of proof-of-work worker threads; 0 means one per available core
+    private int threads;
+
+    // Target of the first blocks in leading zero hex digits; retargeting takes over once
+    // retargetWindow blocks have been mined
+    private int difficulty = 4;
+
+    // Block interval the difficulty is retargeted toward
+    private long targetBlockTimeMs = 5000;
+
+    // Number of recent blocks whose timestamps drive each retarget
+    private int retargetWindow = 20;
+
+    // Mine in the background whenever transactions are pending
+    private boolean enabled;
+
+    // Limits every block has to keep to, counting the coinbase; the template builder fills
+    // blocks up to them and blocks from peers that exceed them are rejected
+    private int maxTransactions = 1000;
+    private long maxBlockBytes = 1024 * 1024;
+
+    // How long a template is mined before it is rebuilt to pick up newly arrived transactions
+    private long templateRefreshMs = 1000;
+
+    private final Reward reward = new Reward();
+
+    // Getters and Setters
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(int difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public long getTargetBlockTimeMs() {
+        return targetBlockTimeMs;
+    }
+
+    public void setTargetBlockTimeMs(long targetBlockTimeMs) {
+        this.targetBlockTimeMs = targetBlockTimeMs;
+    }
+
+    public int getRetargetWindow() {
+        return retargetWindow;
+    }
+
+    public void setRetargetWindow(int retargetWindow) {
+        this.retargetWindow = retargetWindow;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxTransactions() {
+        return maxTransactions;
+    }
+
+    public void setMaxTransactions(int maxTransactions) {
+        this.maxTransactions = maxTransactions;
+    }
+
+    public long getMaxBlockBytes() {
+        return maxBlockBytes;
+    }
+
+    public void setMaxBlockBytes(long maxBlockBytes) {
+        this.maxBlockBytes = maxBlockBytes;
+    }
+
+    public long getTemplateRefreshMs() {
+        return templateRefreshMs;
+    }
+
+    public void setTemplateRefreshMs(long templateRefreshMs) {
+        this.templateRefreshMs = templateRefreshMs;
+    }
+
+    public Reward getReward() {
+        return reward;
+    }
+
+    public static class Reward {
+
+        // Recipient of the coinbase transaction; no coinbase is added when empty
+        private String address;
+
+        // Amount paid by the coinbase transaction of every mined block
+        private double amount = 50;
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.jestogp9te.blockchain;
+
+public class MiningResult {
+    private final Block block;
+    private final long attempts;
+    private final long elapsedNanos;
+    private final int workers;
+
+    public MiningResult(Block block, long attempts, long elapsedNanos, int workers) {
+        this.block = block;
+        this.attempts = attempts;
+        this.elapsedNanos = elapsedNanos;
+        this.workers = workers;
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public double getHashesPerSecond() {
+        return elapsedNanos > 0 ? attempts * 1_000_000_000.0 / elapsedNanos : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "MiningResult{block=" + block.getIndex() + ", attempts=" + attempts
+                + ", elapsedMs=" + elapsedNanos / 1_000_000 + ", workers=" + workers
+                + ", hashesPerSecond=" + Math.round(getHashesPerSecond()) + '}';
+    }
+}
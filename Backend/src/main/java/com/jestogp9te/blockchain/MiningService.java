@@ -0,0 +1,368 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.persistence.StorageException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Mines on a background thread so that proof of work never holds up a request thread. The
+// loop runs while there are jobs, or while mining is enabled and the next template holds
+// transactions besides the coinbase.
+// A block arriving from elsewhere makes the current template stale and cancels it at once;
+// transactions arriving mid-search are picked up by taking a new template from
+// BlockTemplateBuilder once the current one has been mined for mining.templateRefreshMs.
+@Component
+public class MiningService implements BlockchainListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MiningService.class);
+
+    // Finished jobs are kept around for status queries up to this many jobs in total
+    private static final int MAX_RETAINED_JOBS = 256;
+
+    private static final int MAX_JOB_BLOCKS = 1000;
+
+    private static final long FAILURE_BACKOFF_MS = 1000;
+
+    private final Blockchain blockchain;
+    private final BlockTemplateBuilder templates;
+    private final MiningEngine engine;
+    private final MiningProperties properties;
+    private final Object lock = new Object();
+    private final Deque<MiningJob> queue = new ArrayDeque<>();
+    private final Map<Long, MiningJob> jobs = new LinkedHashMap<>();
+    private final AtomicLong jobIds = new AtomicLong();
+    private final AtomicLong blocksMined = new AtomicLong();
+    private final AtomicLong templatesAbandoned = new AtomicLong();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "mining-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Thread thread;
+    private volatile boolean running;
+    private volatile boolean enabled;
+    private volatile boolean idle;
+    private volatile MiningTask current;
+
+    public MiningService(Blockchain blockchain, BlockTemplateBuilder templates,
+                         MiningEngine engine, MiningProperties properties) {
+        this.blockchain = blockchain;
+        this.templates = templates;
+        this.engine = engine;
+        this.properties = properties;
+        this.enabled = properties.isEnabled();
+        blockchain.addListener(this);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "mining-service");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Mining service started, background mining {}", enabled ? "enabled" : "disabled");
+    }
+
+    public MiningJob submit(int blocks) {
+        if (blocks < 1 || blocks > MAX_JOB_BLOCKS) {
+            throw new IllegalArgumentException("blocks must be between 1 and " + MAX_JOB_BLOCKS);
+        }
+        MiningJob job = new MiningJob(jobIds.incrementAndGet(), blocks);
+        synchronized (lock) {
+            queue.addLast(job);
+            jobs.put(job.getId(), job);
+            trimJobs();
+            lock.notifyAll();
+        }
+        logger.info("Mining job {} submitted for {} block(s)", job.getId(), blocks);
+        return job;
+    }
+
+    public MiningJob getJob(long id) {
+        synchronized (lock) {
+            return jobs.get(id);
+        }
+    }
+
+    public List<MiningJob> getJobs() {
+        synchronized (lock) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    // False if the job had already finished
+    public boolean cancel(long id) {
+        MiningJob job;
+        synchronized (lock) {
+            job = jobs.get(id);
+            if (job == null || !job.cancel()) {
+                return false;
+            }
+            queue.remove(job);
+            MiningTask task = current;
+            if (task != null && !hasWork()) {
+                task.cancel();
+            }
+        }
+        logger.info("Mining job {} cancelled", id);
+        publish(job);
+        return true;
+    }
+
+    public void setEnabled(boolean enabled) {
+        synchronized (lock) {
+            this.enabled = enabled;
+            MiningTask task = current;
+            if (task != null && !hasWork()) {
+                task.cancel();
+            }
+            lock.notifyAll();
+        }
+        logger.info("Background mining {}", enabled ? "enabled" : "disabled");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // A competing block makes the template stale: it no longer extends the tip
+    @Override
+    public void onBlockAdded(Block block) {
+        MiningTask task = current;
+        if (task != null && task.getBlock() != block) {
+            task.cancel();
+        }
+        wake();
+    }
+
+    @Override
+    public void onTransactionAdded(Transaction tx) {
+        wake();
+    }
+
+    // Only takes the lock when the loop is waiting or about to. The loop raises idle before it
+    // checks for work and callers change the work before calling this, so either the loop sees
+    // the new work or this sees idle and notifies. BlockTemplateBuilder registers as a listener
+    // before this service, so its template is updated by the time a transaction wakes the loop.
+    private void wake() {
+        if (idle) {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private boolean hasWork() {
+        return !queue.isEmpty() || (enabled && templates.hasTransactions());
+    }
+
+    private void run() {
+        while (running) {
+            MiningJob job;
+            synchronized (lock) {
+                idle = true;
+                try {
+                    while (running && !hasWork()) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    idle = false;
+                }
+                if (!running) {
+                    return;
+                }
+                job = queue.peekFirst();
+            }
+            if (job != null) {
+                if (job.isFinished()) {
+                    continue;
+                }
+                if (job.start()) {
+                    publish(job);
+                }
+            }
+            try {
+                mineTemplate(job);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Mining failed", e);
+                failJob(job, e.getMessage());
+                // Don't spin on a persistent failure such as a broken store
+                try {
+                    Thread.sleep(FAILURE_BACKOFF_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void mineTemplate(MiningJob job) throws InterruptedException {
+        long templateVersion = templates.getVersion();
+        Block template = templates.getTemplate();
+        MiningTask task = engine.start(template);
+        current = task;
+        // A block that landed while the template was built was not seen by onBlockAdded
+        if (template.getIndex() != blockchain.getLength()) {
+            task.cancel();
+        }
+        long refreshMs = Math.max(1, properties.getTemplateRefreshMs());
+        try {
+            while (!task.await(refreshMs, TimeUnit.MILLISECONDS)) {
+                if (templates.getVersion() != templateVersion) {
+                    task.cancel();
+                }
+            }
+        } catch (InterruptedException e) {
+            task.cancel();
+            throw e;
+        } finally {
+            current = null;
+        }
+        if (job != null) {
+            job.recordTemplate(task.getAttempts());
+            publish(job);
+        }
+
+        MiningResult result = task.getResult();
+        if (result == null) {
+            if (task.getFailure() != null) {
+                throw new IllegalStateException("Proof of work failed", task.getFailure());
+            }
+            templatesAbandoned.incrementAndGet();
+            logger.debug("Abandoned template for block {} after {} attempts", template.getIndex(), task.getAttempts());
+            return;
+        }
+        try {
+            blockchain.addBlock(template);
+        } catch (IllegalArgumentException e) {
+            // Lost the race to a block that arrived after the solution was found
+            templatesAbandoned.incrementAndGet();
+            logger.debug("Mined block {} was not accepted: {}", template.getIndex(), e.getMessage());
+            return;
+        } catch (StorageException e) {
+            throw new IllegalStateException("Could not store mined block " + template.getIndex(), e);
+        }
+        blocksMined.incrementAndGet();
+        creditBlock(template);
+    }
+
+    private void creditBlock(Block block) {
+        MiningJob job;
+        synchronized (lock) {
+            job = queue.peekFirst();
+            if (job == null) {
+                return;
+            }
+            if (job.addBlock(block)) {
+                queue.removeFirst();
+                logger.info("Mining job {} completed", job.getId());
+            }
+        }
+        publish(job);
+    }
+
+    private void failJob(MiningJob job, String message) {
+        if (job == null) {
+            return;
+        }
+        synchronized (lock) {
+            queue.remove(job);
+        }
+        job.fail(message);
+        publish(job);
+    }
+
+    // Subscribers are called on their own thread, so a slow client never stalls the miner
+    private void publish(MiningJob job) {
+        if (job.getSubscribers().isEmpty()) {
+            return;
+        }
+        Map<String, Object> snapshot = job.snapshot();
+        try {
+            notifier.execute(() -> {
+                for (Consumer<Map<String, Object>> subscriber : job.getSubscribers()) {
+                    try {
+                        subscriber.accept(snapshot);
+                    } catch (RuntimeException e) {
+                        logger.debug("Mining job subscriber failed: {}", e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void trimJobs() {
+        var it = jobs.values().iterator();
+        while (jobs.size() > MAX_RETAINED_JOBS && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+            }
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        MiningTask task = current;
+        status.put("mining", task != null);
+        if (task != null) {
+            Block template = task.getBlock();
+            status.put("templateIndex", template.getIndex());
+            status.put("templateTransactions", template.getTransactions().size());
+            status.put("attempts", task.getAttempts());
+            status.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(task.getElapsedNanos()));
+        }
+        DifficultyAdjuster difficulty = blockchain.getDifficulty();
+        int bits = difficulty.getNextBits();
+        status.put("bits", Integer.toHexString(bits));
+        status.put("difficulty", Math.round(Target.work(Target.toBigInteger(bits)) * 100) / 100.0);
+        status.put("targetBlockTimeMs", difficulty.getTargetIntervalMs());
+        status.put("averageBlockTimeMs", difficulty.getAverageIntervalMs());
+        status.put("workers", engine.getWorkers());
+        status.put("nextTemplate", templates.snapshot());
+        status.put("rewardAddress", properties.getReward().getAddress());
+        status.put("blocksMined", blocksMined.get());
+        status.put("templatesAbandoned", templatesAbandoned.get());
+        synchronized (lock) {
+            status.put("queuedJobs", queue.size());
+        }
+        MiningResult last = engine.getLastResult();
+        if (last != null) {
+            status.put("lastHashesPerSecond", Math.round(last.getHashesPerSecond()));
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        MiningTask task = current;
+        if (task != null) {
+            task.cancel();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+        notifier.shutdownNow();
+    }
+}
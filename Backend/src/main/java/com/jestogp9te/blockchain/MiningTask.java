@@ -0,0 +1,124 @@
+package com.jestogp9te.blockchain;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// One proof-of-work search started by MiningEngine. Workers poll the stop flag between nonces,
+// so cancel() takes effect within a single hash; the last worker to stop applies the winning
+// solution to the block and publishes the result.
+public class MiningTask {
+
+    private final MiningEngine engine;
+    private final Block block;
+    private final int workers;
+    private final long startedAt = System.nanoTime();
+    private final LongAdder attempts = new LongAdder();
+    private final AtomicInteger running;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicReference<Solution> solution = new AtomicReference<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean stopped;
+    private volatile boolean cancelled;
+    private volatile MiningResult result;
+
+    MiningTask(MiningEngine engine, Block block, int workers) {
+        this.engine = engine;
+        this.block = block;
+        this.workers = workers;
+        this.running = new AtomicInteger(workers);
+    }
+
+    // Stops the search; a solution found before the workers noticed is still applied
+    public void cancel() {
+        cancelled = true;
+        stopped = true;
+    }
+
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    // False if the search is still running after the timeout
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled && result == null;
+    }
+
+    // Null until a solution is found, and for good if the task was cancelled or failed
+    public MiningResult getResult() {
+        return result;
+    }
+
+    public Throwable getFailure() {
+        return failure.get();
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    // Attempts published by the workers so far
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    void addAttempts(long count) {
+        attempts.add(count);
+    }
+
+    void solve(long timestamp, int nonce, String hash) {
+        if (solution.compareAndSet(null, new Solution(timestamp, nonce, hash))) {
+            stopped = true;
+        }
+    }
+
+    void fail(Throwable t) {
+        failure.compareAndSet(null, t);
+        stopped = true;
+    }
+
+    void workerDone() {
+        if (running.decrementAndGet() > 0) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        Solution found = solution.get();
+        if (found != null) {
+            block.applySolution(found.timestamp, found.nonce, found.hash);
+            MiningResult mined = new MiningResult(block, attempts.sum(), elapsed, workers);
+            result = mined;
+            engine.onSolved(mined);
+        }
+        done.countDown();
+    }
+
+    private static final class Solution {
+        private final long timestamp;
+        private final int nonce;
+        private final String hash;
+
+        private Solution(long timestamp, int nonce, String hash) {
+            this.timestamp = timestamp;
+            this.nonce = nonce;
+            this.hash = hash;
+        }
+    }
+}
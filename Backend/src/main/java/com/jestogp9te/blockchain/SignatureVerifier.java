@@ -0,0 +1,197 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.util.PublicKeyCache;
+import com.jestogp9te.util.WalletUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Verifies batches of ECDSA signatures across a worker pool. Decoded public keys come from a
+// bounded LRU cache and every worker reuses its own Signature instance (see WalletUtil).
+@Service
+public class SignatureVerifier implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignatureVerifier.class);
+
+    // Batches smaller than this are verified on the calling thread
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private final int workers;
+    private final boolean requireSignatures;
+    private final PublicKeyCache publicKeys;
+    private final ExecutorService executor;
+    private final LongAdder failures = new LongAdder();
+    private volatile Timer verifyTimer;
+    private volatile Timer batchTimer;
+
+    @Autowired
+    public SignatureVerifier(VerificationProperties properties) {
+        this(properties.getThreads(), properties.getKeyCacheSize(), properties.isRequireSignatures());
+    }
+
+    public SignatureVerifier(int threads, int keyCacheSize, boolean requireSignatures) {
+        this.workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.requireSignatures = requireSignatures;
+        this.publicKeys = new PublicKeyCache(keyCacheSize);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "sig-verify-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean verify(SignedData item) {
+        Timer timer = verifyTimer;
+        long start = timer != null ? System.nanoTime() : 0;
+        boolean valid = check(item);
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!valid) {
+            failures.increment();
+        }
+        return valid;
+    }
+
+    private boolean check(SignedData item) {
+        if (item.getSignature() == null) {
+            return false;
+        }
+        try {
+            return WalletUtil.verify(publicKeys.get(item.getPublicKey()), item.getData(), item.getSignature());
+        } catch (Exception e) {
+            // Malformed keys or signatures simply fail verification
+            logger.debug("Signature check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean verifySignature(String base64PublicKey, String data, byte[] signature) {
+        return verify(new SignedData(base64PublicKey, data, signature));
+    }
+
+    // Unsigned transactions pass unless verification.requireSignatures is set
+    public boolean verify(Transaction tx) {
+        if (tx.getSignature() == null) {
+            return !requireSignatures;
+        }
+        return verify(SignedData.of(tx));
+    }
+
+    public boolean[] verifyAll(List<SignedData> items) {
+        boolean[] results = new boolean[items.size()];
+        forEachChunk(items.size(), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = verify(items.get(i));
+            }
+        });
+        return results;
+    }
+
+    public boolean[] verifyTransactions(List<Transaction> transactions) {
+        boolean[] results = new boolean[transactions.size()];
+        forEachChunk(transactions.size(), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = verify(transactions.get(i));
+            }
+        });
+        return results;
+    }
+
+    // Transactions of the list that fail verification; empty when the whole batch is valid
+    public List<Transaction> findInvalid(List<Transaction> transactions) {
+        boolean[] results = verifyTransactions(transactions);
+        List<Transaction> invalid = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i]) {
+                invalid.add(transactions.get(i));
+            }
+        }
+        return invalid;
+    }
+
+    private void forEachChunk(int size, ChunkTask task) {
+        Timer timer = batchTimer;
+        long start = timer != null ? System.nanoTime() : 0;
+        runChunks(size, task);
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void runChunks(int size, ChunkTask task) {
+        if (size < PARALLEL_THRESHOLD || workers == 1) {
+            task.run(0, size);
+            return;
+        }
+        int chunk = (size + workers - 1) / workers;
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int from = 0; from < size; from += chunk) {
+            int start = from;
+            int end = Math.min(from + chunk, size);
+            tasks.add(() -> {
+                task.run(start, end);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Signature verification interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Signature verification failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        verifyTimer = Timer.builder("signature.verify")
+                .description("Latency of a single ECDSA signature check")
+                .publishPercentileHistogram()
+                .register(registry);
+        batchTimer = Timer.builder("signature.verify.batch")
+                .description("Latency of verifying a batch across the worker pool")
+                .publishPercentileHistogram()
+                .register(registry);
+        FunctionCounter.builder("signature.verify.failures", failures, LongAdder::sum)
+                .description("Signatures that did not verify")
+                .register(registry);
+        Gauge.builder("signature.keycache.size", this, SignatureVerifier::getCachedKeyCount)
+                .description("Decoded public keys held in the cache")
+                .register(registry);
+    }
+
+    public int getCachedKeyCount() {
+        return publicKeys.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private interface ChunkTask {
+        void run(int from, int to);
+    }
+}
@@ -0,0 +1,30 @@
+package com.jestogp9te.blockchain;
+
+// One (public key, data, signature) tuple for batch verification
+public class SignedData {
+    private final String publicKey;
+    private final String data;
+    private final byte[] signature;
+
+    public SignedData(String publicKey, String data, byte[] signature) {
+        this.publicKey = publicKey;
+        this.data = data;
+        this.signature = signature;
+    }
+
+    public static SignedData of(Transaction tx) {
+        return new SignedData(tx.getSender(), tx.calculateHash(), tx.getSignature());
+    }
+
+    public String getPublicKey() {
+        return publicKey;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public byte[] getSignature() {
+        return signature;
+    }
+}
@@ -0,0 +1,91 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.util.HashUtil;
+import java.math.BigInteger;
+
+// 256-bit proof-of-work targets. A hash meets a target when, read as an unsigned big-endian
+// number, it is not above it. Headers carry the target in compact "bits" form: one exponent
+// byte giving the target's length in bytes, followed by its three most significant bytes.
+public final class Target {
+
+    // Easiest target any block may claim
+    public static final int MIN_ZERO_BITS = 8;
+    public static final BigInteger MAX = zeroBitsTarget(MIN_ZERO_BITS);
+    public static final int MAX_BITS = toCompact(MAX);
+
+    private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+
+    private Target() {
+    }
+
+    // Largest target with the given number of leading zero bits, i.e. 2^(256 - zeroBits) - 1
+    public static BigInteger zeroBitsTarget(int zeroBits) {
+        if (zeroBits < 0 || zeroBits > HashUtil.HASH_LENGTH * 8) {
+            throw new IllegalArgumentException("Zero bits out of range: " + zeroBits);
+        }
+        return BigInteger.ONE.shiftLeft(HashUtil.HASH_LENGTH * 8 - zeroBits).subtract(BigInteger.ONE);
+    }
+
+    public static int fromZeroBits(int zeroBits) {
+        return toCompact(zeroBitsTarget(zeroBits));
+    }
+
+    // Rounds down to the three most significant bytes, so the result is never easier than the input
+    public static int toCompact(BigInteger target) {
+        if (target.signum() <= 0) {
+            throw new IllegalArgumentException("Target must be positive");
+        }
+        int size = (target.bitLength() + 7) / 8;
+        long mantissa = size <= 3
+                ? target.longValue() << (8 * (3 - size))
+                : target.shiftRight(8 * (size - 3)).longValue();
+        // The top mantissa bit is a sign bit in this encoding
+        if ((mantissa & 0x800000) != 0) {
+            mantissa >>>= 8;
+            size++;
+        }
+        return (size << 24) | (int) mantissa;
+    }
+
+    public static BigInteger toBigInteger(int bits) {
+        int size = bits >>> 24;
+        int mantissa = bits & 0x7fffff;
+        if ((bits & 0x800000) != 0 || mantissa == 0 || size > HashUtil.HASH_LENGTH + 1) {
+            throw new IllegalArgumentException("Invalid compact target " + Integer.toHexString(bits));
+        }
+        BigInteger value = BigInteger.valueOf(mantissa);
+        BigInteger target = size <= 3 ? value.shiftRight(8 * (3 - size)) : value.shiftLeft(8 * (size - 3));
+        if (target.signum() == 0 || target.bitLength() > HashUtil.HASH_LENGTH * 8) {
+            throw new IllegalArgumentException("Invalid compact target " + Integer.toHexString(bits));
+        }
+        return target;
+    }
+
+    // Fixed-width form for the mining loop, which compares it against every hash
+    public static byte[] toBytes(BigInteger target) {
+        byte[] raw = target.toByteArray();
+        byte[] bytes = new byte[HashUtil.HASH_LENGTH];
+        int length = Math.min(raw.length, bytes.length);
+        System.arraycopy(raw, raw.length - length, bytes, bytes.length - length, length);
+        return bytes;
+    }
+
+    public static boolean isMetBy(byte[] hash, byte[] target) {
+        for (int i = 0; i < target.length; i++) {
+            int h = hash[i] & 0xff;
+            int t = target[i] & 0xff;
+            if (h != t) {
+                return h < t;
+            }
+        }
+        return true;
+    }
+
+    // Expected number of hashes to meet the target, as a power of two. Equals the number of
+    // required leading zero bits for targets of the form 2^(256 - n) - 1.
+    public static double work(BigInteger target) {
+        BigInteger hashes = TWO_256.divide(target.add(BigInteger.ONE));
+        int shift = Math.max(0, hashes.bitLength() - 53);
+        return Math.log(hashes.shiftRight(shift).doubleValue()) / Math.log(2) + shift;
+    }
+}
@@ -1,22 +1,50 @@
 package com.jestogp9te.blockchain;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.security.PublicKey;
 import com.jestogp9te.util.HashUtil;
 
 public class Transaction {
+    // Sender of a block reward; the height after it keeps every coinbase hash unique
+    private static final String COINBASE_PREFIX = "coinbase:";
+
     private String sender;
     private String recipient;
     private double amount;
+    private double fee;
     private byte[] signature;
+    private volatile byte[] hash;
 
-    public Transaction(String sender, String recipient, double amount) {
+    @JsonCreator
+    public Transaction(@JsonProperty("sender") String sender,
+                       @JsonProperty("recipient") String recipient,
+                       @JsonProperty("amount") double amount) {
         this.sender = sender;
         this.recipient = recipient;
         this.amount = amount;
     }
 
+    // Block reward paid to the miner; only valid as the first transaction of the block at that height
+    public static Transaction coinbase(int height, String recipient, double reward) {
+        return new Transaction(COINBASE_PREFIX + height, recipient, reward);
+    }
+
     public String calculateHash() {
-        return HashUtil.sha256(sender + recipient + amount);
+        return HashUtil.toHex(calculateHashBytes());
+    }
+
+    // Cached after the first call; the fee is only part of the preimage when set, so hashes of
+    // transactions created before fees existed are unchanged
+    public byte[] calculateHashBytes() {
+        byte[] cached = hash;
+        if (cached == null) {
+            String preimage = fee == 0 ? sender + recipient + amount : sender + recipient + amount + fee;
+            cached = HashUtil.sha256(preimage.getBytes());
+            hash = cached;
+        }
+        return cached.clone();
     }
 
     public void setSignature(byte[] signature) {
@@ -31,10 +59,35 @@ public class Transaction {
         return com.jestogp9te.util.WalletUtil.verify(publicKey, calculateHash(), signature);
     }
 
+    public void setFee(double fee) {
+        this.fee = fee;
+        this.hash = null;
+    }
+
     // Getters
     public String getSender() { return sender; }
     public String getRecipient() { return recipient; }
     public double getAmount() { return amount; }
+    public double getFee() { return fee; }
+
+    // Fields every pooled or mined transaction needs; the signature is checked separately
+    @JsonIgnore
+    public boolean isWellFormed() {
+        return sender != null && !sender.isEmpty()
+                && recipient != null && !recipient.isEmpty()
+                && amount > 0 && Double.isFinite(amount)
+                && fee >= 0 && Double.isFinite(fee);
+    }
+
+    @JsonIgnore
+    public boolean isCoinbase() {
+        return sender != null && sender.startsWith(COINBASE_PREFIX);
+    }
+
+    @JsonIgnore
+    public boolean isCoinbaseFor(int height) {
+        return isCoinbase() && sender.equals(COINBASE_PREFIX + height);
+    }
 
     @Override
     public String toString() {
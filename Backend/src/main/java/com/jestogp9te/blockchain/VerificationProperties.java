@@ -0,0 +1,43 @@
+package com.jestogp9te.blockchain;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "verification")
+public class VerificationProperties {
+
+    // Signature verification worker threads; 0 means one per available core
+    private int threads;
+
+    // Number of decoded public keys kept in the LRU cache
+    private int keyCacheSize = 10_000;
+
+    // Reject unsigned transactions instead of admitting them unchecked
+    private boolean requireSignatures;
+
+    // Getters and Setters
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getKeyCacheSize() {
+        return keyCacheSize;
+    }
+
+    public void setKeyCacheSize(int keyCacheSize) {
+        this.keyCacheSize = keyCacheSize;
+    }
+
+    public boolean isRequireSignatures() {
+        return requireSignatures;
+    }
+
+    public void setRequireSignatures(boolean requireSignatures) {
+        this.requireSignatures = requireSignatures;
+    }
+}
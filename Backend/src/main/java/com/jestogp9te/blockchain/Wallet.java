@@ -17,24 +17,20 @@ public class Wallet {
         logger.debug("Wallet instance created");
     }
 
-    // Generate a new public/private key pair using Elliptic Curve cryptography
+    // Wraps a key pair generated elsewhere, such as one taken from the KeyPairPool
+    public Wallet(KeyPair keyPair) {
+        setKeyPair(keyPair);
+    }
+
+    // Generate a new public/private key pair using Elliptic Curve cryptography. Seeds from the
+    // platform's default SecureRandom, which does not block waiting for entropy the way
+    // SecureRandom.getInstanceStrong() can; wallets served over the API come from the KeyPairPool.
     public void generateKeyPair() {
         logger.debug("Starting key pair generation...");
         try {
-            logger.debug("Creating KeyPairGenerator for EC...");
             KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
-            logger.debug("Creating SecureRandom instance...");
-            SecureRandom random = SecureRandom.getInstanceStrong();
-            logger.debug("Initializing KeyPairGenerator with 256 bits...");
-            keyGen.initialize(256, random);
-            logger.debug("Generating key pair...");
-            KeyPair keyPair = keyGen.generateKeyPair();
-
-            logger.debug("Extracting private and public keys...");
-            this.privateKey = keyPair.getPrivate();
-            this.publicKey = keyPair.getPublic();
-            logger.debug("Generating address from public key...");
-            this.address = getPublicKeyString();
+            keyGen.initialize(256, new SecureRandom());
+            setKeyPair(keyGen.generateKeyPair());
             logger.info("Key pair generated successfully");
         } catch (Exception e) {
             logger.error("Failed to generate key pair: ", e);
@@ -42,6 +38,12 @@ public class Wallet {
         }
     }
 
+    private void setKeyPair(KeyPair keyPair) {
+        this.privateKey = keyPair.getPrivate();
+        this.publicKey = keyPair.getPublic();
+        this.address = getPublicKeyString();
+    }
+
     // Sign data with the private key and return the signature bytes
     public byte[] signData(byte[] data) {
         try {
@@ -0,0 +1,322 @@
+package com.jestogp9te.blockchain;
+
+import com.jestogp9te.persistence.LevelDBManager;
+import com.jestogp9te.util.WalletUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+// Wallets persisted in LevelDB, keyed by address. Private keys are stored encrypted with
+// AES-256-GCM under a key derived from wallet.passphrase with PBKDF2; the address is bound to
+// each record as associated data, so a record copied under another address does not decrypt.
+// Layout:
+//   keystore:meta     -> KDF salt and iterations, plus a check value that detects a wrong passphrase
+//   wallet:<address>  -> creation time, nonce and encrypted PKCS#8 private key
+//
+// Decrypting and parsing a key is far slower than signing with it, so recently used wallets
+// keep their decoded keys and a Signature already initialized for signing in a bounded LRU.
+@Component
+public class WalletKeystore implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletKeystore.class);
+
+    private static final String WALLET_PREFIX = "wallet:";
+    private static final String META_KEY = "keystore:meta";
+    private static final byte RECORD_VERSION = 1;
+
+    private static final String KDF_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int KDF_ITERATIONS = 210_000;
+    private static final int KEY_BITS = 256;
+    private static final int SALT_BYTES = 16;
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final byte[] CHECK_VALUE = "jestogp9te-keystore".getBytes(StandardCharsets.UTF_8);
+
+    private final LevelDBManager db;
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, CachedWallet> cache;
+    private final AtomicLong wallets = new AtomicLong();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    public WalletKeystore(@Qualifier("walletDatabase") LevelDBManager db, WalletProperties properties) {
+        this.db = db;
+        int capacity = Math.max(1, properties.getKeyCacheSize());
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedWallet> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.key = openKey(resolvePassphrase(properties));
+        db.forEachWithPrefix(WALLET_PREFIX, (address, record) -> wallets.incrementAndGet());
+        logger.info("Wallet keystore opened with {} wallets", wallets.get());
+    }
+
+    // Stores the key pair and returns its wallet; the address is the Base64 public key
+    public Wallet create(KeyPair keyPair) {
+        Wallet wallet = new Wallet(keyPair);
+        String address = wallet.getAddress();
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        byte[] ciphertext = crypt(Cipher.ENCRYPT_MODE, nonce, address, keyPair.getPrivate().getEncoded());
+        ByteBuffer record = ByteBuffer.allocate(1 + Long.BYTES + NONCE_BYTES + ciphertext.length)
+                .put(RECORD_VERSION)
+                .putLong(System.currentTimeMillis())
+                .put(nonce)
+                .put(ciphertext);
+        db.put(WALLET_PREFIX + address, record.array());
+        wallets.incrementAndGet();
+        synchronized (cache) {
+            cache.put(address, new CachedWallet(keyPair.getPrivate(), keyPair.getPublic()));
+        }
+        return wallet;
+    }
+
+    public boolean contains(String address) {
+        synchronized (cache) {
+            if (cache.containsKey(address)) {
+                return true;
+            }
+        }
+        return db.get(WALLET_PREFIX + address) != null;
+    }
+
+    // Creation time in epoch milliseconds, or -1 for an unknown address
+    public long getCreatedAt(String address) {
+        byte[] record = db.get(WALLET_PREFIX + address);
+        return record != null ? ByteBuffer.wrap(record, 1, Long.BYTES).getLong() : -1;
+    }
+
+    public PublicKey getPublicKey(String address) {
+        return load(address).publicKey;
+    }
+
+    public byte[] sign(String address, String data) {
+        CachedWallet wallet = load(address);
+        // The signer is left initialized after sign(), so only updates are needed per use
+        synchronized (wallet) {
+            try {
+                wallet.signer.update(data.getBytes());
+                return wallet.signer.sign();
+            } catch (GeneralSecurityException e) {
+                throw new WalletException("Failed to sign data", e);
+            }
+        }
+    }
+
+    public String signData(String address, String data) {
+        return Base64.getEncoder().encodeToString(sign(address, data));
+    }
+
+    public long size() {
+        return wallets.get();
+    }
+
+    public int getCachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private CachedWallet load(String address) {
+        CachedWallet wallet;
+        synchronized (cache) {
+            wallet = cache.get(address);
+        }
+        if (wallet != null) {
+            cacheHits.increment();
+            return wallet;
+        }
+        cacheMisses.increment();
+        byte[] record = db.get(WALLET_PREFIX + address);
+        if (record == null) {
+            throw new WalletException("No wallet with address " + address);
+        }
+        // Decrypt outside the lock; a concurrent miss at worst decodes the same wallet twice
+        ByteBuffer in = ByteBuffer.wrap(record);
+        if (in.get() != RECORD_VERSION) {
+            throw new WalletException("Unsupported wallet record version for " + address);
+        }
+        in.getLong();
+        byte[] nonce = new byte[NONCE_BYTES];
+        in.get(nonce);
+        byte[] ciphertext = new byte[in.remaining()];
+        in.get(ciphertext);
+        byte[] encoded = crypt(Cipher.DECRYPT_MODE, nonce, address, ciphertext);
+        try {
+            PrivateKey privateKey = KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(encoded));
+            wallet = new CachedWallet(privateKey, WalletUtil.decodePublicKey(address));
+        } catch (GeneralSecurityException e) {
+            throw new WalletException("Corrupt wallet record for " + address, e);
+        } finally {
+            Arrays.fill(encoded, (byte) 0);
+        }
+        synchronized (cache) {
+            cache.put(address, wallet);
+        }
+        return wallet;
+    }
+
+    private byte[] crypt(int mode, byte[] nonce, String associatedData, byte[] input) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(mode, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(associatedData.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(input);
+        } catch (GeneralSecurityException e) {
+            throw new WalletException("Failed to " + (mode == Cipher.ENCRYPT_MODE ? "encrypt" : "decrypt")
+                    + " wallet key", e);
+        }
+    }
+
+    // Derives the key with the stored salt, or sets up a new keystore on first start
+    private SecretKey openKey(char[] passphrase) {
+        byte[] meta = db.get(META_KEY);
+        try {
+            if (meta == null) {
+                byte[] salt = new byte[SALT_BYTES];
+                random.nextBytes(salt);
+                SecretKey derived = deriveKey(passphrase, salt, KDF_ITERATIONS);
+                byte[] nonce = new byte[NONCE_BYTES];
+                random.nextBytes(nonce);
+                byte[] check = encryptCheck(derived, nonce);
+                db.put(META_KEY, ByteBuffer.allocate(1 + SALT_BYTES + Integer.BYTES + NONCE_BYTES + check.length)
+                        .put(RECORD_VERSION).put(salt).putInt(KDF_ITERATIONS).put(nonce).put(check).array());
+                return derived;
+            }
+            ByteBuffer in = ByteBuffer.wrap(meta);
+            if (in.get() != RECORD_VERSION) {
+                throw new WalletException("Unsupported keystore version");
+            }
+            byte[] salt = new byte[SALT_BYTES];
+            in.get(salt);
+            int iterations = in.getInt();
+            byte[] nonce = new byte[NONCE_BYTES];
+            in.get(nonce);
+            byte[] check = new byte[in.remaining()];
+            in.get(check);
+            SecretKey derived = deriveKey(passphrase, salt, iterations);
+            if (!Arrays.equals(check, encryptCheck(derived, nonce))) {
+                throw new WalletException("Wallet passphrase does not match the keystore");
+            }
+            return derived;
+        } catch (GeneralSecurityException e) {
+            throw new WalletException("Failed to open the wallet keystore", e);
+        } finally {
+            Arrays.fill(passphrase, '\0');
+        }
+    }
+
+    private static SecretKey deriveKey(char[] passphrase, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(passphrase, salt, iterations, KEY_BITS);
+        try {
+            byte[] encoded = SecretKeyFactory.getInstance(KDF_ALGORITHM).generateSecret(spec).getEncoded();
+            return new SecretKeySpec(encoded, "AES");
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] encryptCheck(SecretKey key, byte[] nonce) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+        return cipher.doFinal(CHECK_VALUE);
+    }
+
+    // Without a configured passphrase, one is generated once and kept readable by this user only
+    private static char[] resolvePassphrase(WalletProperties properties) {
+        String configured = properties.getPassphrase();
+        if (configured != null && !configured.isEmpty()) {
+            return configured.toCharArray();
+        }
+        Path file = Path.of(properties.getPassphraseFile());
+        try {
+            if (Files.exists(file)) {
+                return Files.readString(file, StandardCharsets.UTF_8).strip().toCharArray();
+            }
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            String generated = Base64.getEncoder().encodeToString(secret);
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            // Created owner-only from the start, so the secret is never readable by others
+            try {
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(
+                        PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException e) {
+                logger.debug("Cannot restrict permissions of {}", file);
+                Files.createFile(file);
+            }
+            Files.writeString(file, generated, StandardCharsets.UTF_8);
+            logger.warn("No wallet.passphrase configured; generated one in {}", file.toAbsolutePath());
+            return generated.toCharArray();
+        } catch (IOException e) {
+            throw new WalletException("Failed to read or create the wallet passphrase file " + file, e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("wallet.keystore.wallets", wallets, AtomicLong::get)
+                .description("Wallets stored in the keystore")
+                .register(registry);
+        Gauge.builder("wallet.keystore.cache.size", this, WalletKeystore::getCachedCount)
+                .description("Wallets whose decoded keys are held in the cache")
+                .register(registry);
+        FunctionCounter.builder("wallet.keystore.cache.hits", cacheHits, LongAdder::sum)
+                .description("Key lookups served from the cache")
+                .register(registry);
+        FunctionCounter.builder("wallet.keystore.cache.misses", cacheMisses, LongAdder::sum)
+                .description("Key lookups that decrypted and parsed a stored key")
+                .register(registry);
+    }
+
+    private static final class CachedWallet {
+        private final PublicKey publicKey;
+        private final Signature signer;
+
+        private CachedWallet(PrivateKey privateKey, PublicKey publicKey) {
+            this.publicKey = publicKey;
+            try {
+                this.signer = Signature.getInstance("SHA256withECDSA");
+                signer.initSign(privateKey);
+            } catch (GeneralSecurityException e) {
+                throw new WalletException("Failed to prepare signer", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.jestogp9te.blockchain;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "wallet")
+public class WalletProperties {
+
+    // Key pairs generated ahead of wallet creation; 0 generates every key on request
+    private int keyPoolSize = 256;
+
+    // Pooled keys after which the generator is reseeded from the strong entropy source
+    private int reseedInterval = 4096;
+
+    // Passphrase the keystore encryption key is derived from. When empty, a random one is
+    // generated on first start and kept in passphraseFile, apart from the wallet database.
+    private String passphrase;
+    private String passphraseFile = "data/wallet.passphrase";
+
+    // Number of wallets whose decoded keys and signers are kept in the LRU cache
+    private int keyCacheSize = 1000;
+
+    // Getters and Setters
+    public int getKeyPoolSize() {
+        return keyPoolSize;
+    }
+
+    public void setKeyPoolSize(int keyPoolSize) {
+        this.keyPoolSize = keyPoolSize;
+    }
+
+    public int getReseedInterval() {
+        return reseedInterval;
+    }
+
+    public void setReseedInterval(int reseedInterval) {
+        this.reseedInterval = reseedInterval;
+    }
+
+    public String getPassphrase() {
+        return passphrase;
+    }
+
+    public void setPassphrase(String passphrase) {
+        this.passphrase = passphrase;
+    }
+
+    public String getPassphraseFile() {
+        return passphraseFile;
+    }
+
+    public void setPassphraseFile(String passphraseFile) {
+        this.passphraseFile = passphraseFile;
+    }
+
+    public int getKeyCacheSize() {
+        return keyCacheSize;
+    }
+
+    public void setKeyCacheSize(int keyCacheSize) {
+        this.keyCacheSize = keyCacheSize;
+    }
+}
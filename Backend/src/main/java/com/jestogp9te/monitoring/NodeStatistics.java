@@ -0,0 +1,120 @@
+package com.jestogp9te.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+// Live node counters for /stats and /health. The chain, mempool and peer network push
+// changes as they happen, so reading a snapshot never touches blocks or collections.
+@Component
+public class NodeStatistics implements MeterBinder {
+
+    // Number of recent block intervals averaged for averageBlockIntervalMs
+    private static final int INTERVAL_WINDOW = 20;
+
+    private final AtomicLong totalTransactions = new AtomicLong();
+    private final AtomicInteger totalBlocks = new AtomicInteger();
+    private final AtomicInteger pendingTransactions = new AtomicInteger();
+    private final AtomicInteger peers = new AtomicInteger();
+    private volatile long lastBlockTime;
+
+    // Ring buffer of the latest intervals with a running sum; written only under this lock
+    private final long[] intervals = new long[INTERVAL_WINDOW];
+    private int intervalCount;
+    private int intervalNext;
+    private long intervalSum;
+    private volatile long averageBlockInterval;
+
+    // Called once at startup with the restored chain state
+    public void initialize(int blocks, long transactions, long tipTimestamp) {
+        totalBlocks.set(blocks);
+        totalTransactions.set(transactions);
+        lastBlockTime = tipTimestamp;
+    }
+
+    public synchronized void recordBlock(int transactionCount, long timestamp) {
+        totalBlocks.incrementAndGet();
+        totalTransactions.addAndGet(transactionCount);
+        long previous = lastBlockTime;
+        lastBlockTime = timestamp;
+        if (previous <= 0 || timestamp < previous) {
+            return;
+        }
+        long interval = timestamp - previous;
+        if (intervalCount == INTERVAL_WINDOW) {
+            intervalSum -= intervals[intervalNext];
+        } else {
+            intervalCount++;
+        }
+        intervals[intervalNext] = interval;
+        intervalNext = (intervalNext + 1) % INTERVAL_WINDOW;
+        intervalSum += interval;
+        averageBlockInterval = intervalSum / intervalCount;
+    }
+
+    public void adjustPendingTransactions(int delta) {
+        pendingTransactions.addAndGet(delta);
+    }
+
+    public void setPeerCount(int count) {
+        peers.set(count);
+    }
+
+    public long getTotalTransactions() {
+        return totalTransactions.get();
+    }
+
+    public int getTotalBlocks() {
+        return totalBlocks.get();
+    }
+
+    public int getPendingTransactions() {
+        return pendingTransactions.get();
+    }
+
+    public int getPeerCount() {
+        return peers.get();
+    }
+
+    public long getLastBlockTime() {
+        return lastBlockTime;
+    }
+
+    public long getAverageBlockInterval() {
+        return averageBlockInterval;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("node.blocks", this, NodeStatistics::getTotalBlocks)
+                .description("Blocks in the chain")
+                .register(registry);
+        FunctionCounter.builder("node.transactions", this, NodeStatistics::getTotalTransactions)
+                .description("Transactions confirmed in blocks")
+                .register(registry);
+        Gauge.builder("node.peers", this, NodeStatistics::getPeerCount)
+                .description("Known peers")
+                .register(registry);
+        Gauge.builder("node.block.interval.average", this, NodeStatistics::getAverageBlockInterval)
+                .description("Average interval between the latest blocks")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("totalBlocks", getTotalBlocks());
+        snapshot.put("totalTransactions", getTotalTransactions());
+        snapshot.put("pendingTransactions", getPendingTransactions());
+        snapshot.put("connectedPeers", getPeerCount());
+        snapshot.put("lastBlockTime", getLastBlockTime());
+        snapshot.put("averageBlockIntervalMs", getAverageBlockInterval());
+        return snapshot;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jestogp9te.network;
+
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.blockchain.Blockchain;
+import com.jestogp9te.blockchain.BlockchainListener;
+import com.jestogp9te.blockchain.Mempool;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.persistence.SerializationUtil;
+import com.jestogp9te.persistence.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Relays blocks and transactions between this node and its peers. Anything newly accepted
+// locally, whether mined, submitted over REST or received from a peer, is forwarded once;
+// copies that come back are rejected as duplicates, which ends the flood.
+@Component
+public class GossipService implements BlockchainListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(GossipService.class);
+
+    private final Blockchain blockchain;
+    private final PeerNetwork network;
+
+    public GossipService(Blockchain blockchain, PeerNetwork network) {
+        this.blockchain = blockchain;
+        this.network = network;
+        blockchain.addListener(this);
+        network.setMessageHandler(this::onMessage);
+    }
+
+    @Override
+    public void onBlockAdded(Block block) {
+        network.broadcastBlock(block);
+    }
+
+    @Override
+    public void onTransactionAdded(Transaction tx) {
+        network.broadcastTransaction(tx);
+    }
+
+    private void onMessage(MessageType type, byte[] payload, String source) {
+        try {
+            switch (type) {
+                case TRANSACTION -> receiveTransaction(SerializationUtil.deserializeTransaction(payload), source);
+                case BLOCK -> receiveBlock(SerializationUtil.deserializeBlock(payload), source);
+                default -> {
+                }
+            }
+        } catch (StorageException e) {
+            logger.warn("Malformed {} message from {}: {}", type, source, e.getMessage());
+        }
+    }
+
+    private void receiveTransaction(Transaction tx, String source) {
+        Mempool.AdmissionResult result = blockchain.addTransaction(tx);
+        if (result != Mempool.AdmissionResult.ACCEPTED && result != Mempool.AdmissionResult.DUPLICATE) {
+            logger.debug("Transaction from {} not admitted: {}", source, result);
+        }
+    }
+
+    // Only blocks that extend our tip are taken; there is no chain sync for nodes that fall behind
+    private void receiveBlock(Block block, String source) {
+        if (block.getIndex() != blockchain.getLength()) {
+            return;
+        }
+        try {
+            blockchain.addBlock(block);
+            logger.info("Accepted block {} from {}", block.getIndex(), source);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected block {} from {}: {}", block.getIndex(), source, e.getMessage());
+        }
+    }
+}
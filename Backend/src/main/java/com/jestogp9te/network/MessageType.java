@@ -0,0 +1,26 @@
+package com.jestogp9te.network;
+
+public enum MessageType {
+    TEXT(0),
+    TRANSACTION(1),
+    BLOCK(2);
+
+    private final byte code;
+
+    MessageType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static MessageType fromCode(byte code) {
+        for (MessageType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
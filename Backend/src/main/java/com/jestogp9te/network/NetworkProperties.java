@@ -0,0 +1,56 @@
+package com.jestogp9te.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "network")
+public class NetworkProperties {
+
+    // TCP port for inbound peer connections; 0 picks a free port
+    private int port = 6000;
+
+    // Peers to connect to at startup, as host:port
+    private List<String> bootstrapNodes = new ArrayList<>();
+
+    // Frames buffered per peer before further sends to it are dropped
+    private int sendQueueSize = 1024;
+
+    // Largest accepted frame payload in bytes
+    private int maxFrameSize = 16 * 1024 * 1024;
+
+    // Getters and Setters
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public List<String> getBootstrapNodes() {
+        return bootstrapNodes;
+    }
+
+    public void setBootstrapNodes(List<String> bootstrapNodes) {
+        this.bootstrapNodes = bootstrapNodes;
+    }
+
+    public int getSendQueueSize() {
+        return sendQueueSize;
+    }
+
+    public void setSendQueueSize(int sendQueueSize) {
+        this.sendQueueSize = sendQueueSize;
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    public void setMaxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+}
@@ -1,5 +1,18 @@
 package com.jestogp9te.network;
 
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.monitoring.NodeStatistics;
+import com.jestogp9te.persistence.SerializationUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
@@ -7,15 +20,64 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 @Component
-public class PeerNetwork {
+public class PeerNetwork implements MeterBinder {
 
     private static final Logger logger = LoggerFactory.getLogger(PeerNetwork.class);
 
     private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private final NetworkProperties properties;
+    private final NodeStatistics statistics;
+    private volatile PeerTransport transport;
+    private volatile PeerTransport.MessageListener messageHandler;
+    private volatile MeterRegistry registry;
+    private final Map<String, List<Meter>> peerMeters = new ConcurrentHashMap<>();
+
+    public PeerNetwork(NetworkProperties properties, NodeStatistics statistics) {
+        this.properties = properties;
+        this.statistics = statistics;
+    }
+
+    @PostConstruct
+    public void start() {
+        transport = openTransport(properties.getPort());
+        if (transport.getLocalPort() > 0) {
+            logger.info("Peer transport listening on port {}", transport.getLocalPort());
+        }
+        for (String address : properties.getBootstrapNodes()) {
+            addPeer(address);
+        }
+    }
+
+    // Keep the node usable (send-only) when the peer port is already taken
+    private PeerTransport openTransport(int port) {
+        PeerTransport.MessageListener listener = this::onMessage;
+        try {
+            return new PeerTransport(port, properties.getSendQueueSize(), properties.getMaxFrameSize(), listener);
+        } catch (IOException e) {
+            logger.error("Cannot listen for peers on port {}: {}", port, e.getMessage());
+            try {
+                return new PeerTransport(-1, properties.getSendQueueSize(), properties.getMaxFrameSize(), listener);
+            } catch (IOException fatal) {
+                throw new IllegalStateException("Cannot start peer transport", fatal);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (transport != null) {
+            transport.close();
+        }
+    }
 
     // Add a peer by Peer object
     public void addPeer(Peer peer) {
         peers.put(peer.getId(), peer);
+        statistics.setPeerCount(peers.size());
+        if (transport != null) {
+            transport.connect(peer);
+        }
+        registerPeerMeters(peer);
     }
 
     // Add a peer by string address (creates a Peer with default ID)
@@ -33,6 +95,15 @@ public class PeerNetwork {
 
     public void removePeer(String peerId) {
         peers.remove(peerId);
+        statistics.setPeerCount(peers.size());
+        if (transport != null) {
+            transport.disconnect(peerId);
+        }
+        List<Meter> meters = peerMeters.remove(peerId);
+        MeterRegistry bound = registry;
+        if (meters != null && bound != null) {
+            meters.forEach(bound::remove);
+        }
     }
 
     public Collection<Peer> getAllPeers() {
@@ -55,10 +126,81 @@ public class PeerNetwork {
         return addresses;
     }
 
-    public void broadcastMessage(String message) {
+    public int getListenPort() {
+        return transport != null ? transport.getLocalPort() : -1;
+    }
+
+    // Frames waiting in the peer's send queue
+    public int getQueueDepth(String peerId) {
+        return transport != null ? transport.getQueueDepth(peerId) : 0;
+    }
+
+    public void setMessageHandler(PeerTransport.MessageListener handler) {
+        this.messageHandler = handler;
+    }
+
+    // Each send only enqueues; returns the number of peers that accepted the message
+    public int broadcastMessage(String message) {
+        return broadcast(MessageType.TEXT, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int broadcastBlock(Block block) {
+        return broadcast(MessageType.BLOCK, SerializationUtil.serialize(block));
+    }
+
+    public int broadcastTransaction(Transaction transaction) {
+        return broadcast(MessageType.TRANSACTION, SerializationUtil.serialize(transaction));
+    }
+
+    private int broadcast(MessageType type, byte[] payload) {
+        if (transport == null || peers.isEmpty()) {
+            return 0;
+        }
+        int accepted = transport.broadcast(type, payload);
+        if (accepted < peers.size()) {
+            logger.debug("{} message queued for {} of {} peers", type, accepted, peers.size());
+        }
+        return accepted;
+    }
+
+    // Peers added before the registry was bound get their meters here
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
         for (Peer peer : peers.values()) {
-            // Simulate sending a message
-            logger.info("Sending message to {}:{} -> {}", peer.getIp(), peer.getPort(), message);
+            registerPeerMeters(peer);
+        }
+    }
+
+    private void registerPeerMeters(Peer peer) {
+        MeterRegistry bound = registry;
+        if (bound == null) {
+            return;
+        }
+        String id = peer.getId();
+        String address = peer.getIp() + ":" + peer.getPort();
+        peerMeters.computeIfAbsent(id, key -> List.of(
+                Gauge.builder("p2p.send.queue.depth", this, network -> network.getQueueDepth(id))
+                        .description("Frames waiting in the peer's send queue")
+                        .tag("peer", address)
+                        .register(bound),
+                FunctionCounter.builder("p2p.frames.dropped", this, network -> network.getDroppedFrames(id))
+                        .description("Frames dropped because the peer's send queue was full")
+                        .tag("peer", address)
+                        .register(bound)));
+    }
+
+    public long getDroppedFrames(String peerId) {
+        return transport != null ? transport.getDroppedFrames(peerId) : 0;
+    }
+
+    private void onMessage(MessageType type, byte[] payload, String source) {
+        if (type == MessageType.TEXT) {
+            logger.info("Message from {} -> {}", source, new String(payload, StandardCharsets.UTF_8));
+        }
+        PeerTransport.MessageListener handler = messageHandler;
+        if (handler != null) {
+            handler.onMessage(type, payload, source);
         }
     }
 }
@@ -0,0 +1,418 @@
+package com.jestogp9te.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Non-blocking TCP transport for peer messages, driven by a single selector thread.
+//
+// Frames are length-prefixed: length (4, big-endian) | type (1) | payload, where length
+// counts the type byte and payload. Every peer gets one persistent outbound connection with
+// its own bounded send queue; a broadcast only enqueues a shared read-only frame per peer,
+// so a slow or dead peer fills its own queue (further sends to it are dropped) without
+// holding up the others. Inbound connections are read-only and their frames are handed to
+// the listener on a separate dispatch thread so message handling never blocks socket I/O.
+public class PeerTransport implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerTransport.class);
+
+    private static final int HEADER_SIZE = 5;
+    private static final int INITIAL_READ_BUFFER = 64 * 1024;
+    private static final long SELECT_TIMEOUT_MS = 500;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    public interface MessageListener {
+        void onMessage(MessageType type, byte[] payload, String source);
+    }
+
+    private final int sendQueueSize;
+    private final int maxFrameSize;
+    private final MessageListener listener;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ExecutorService dispatcher;
+    private final Thread ioThread;
+    private volatile boolean running = true;
+
+    // A negative port disables the listening socket (send-only transport)
+    public PeerTransport(int port, int sendQueueSize, int maxFrameSize, MessageListener listener) throws IOException {
+        this.sendQueueSize = sendQueueSize;
+        this.maxFrameSize = maxFrameSize;
+        this.listener = listener;
+        this.selector = Selector.open();
+        if (port >= 0) {
+            server = ServerSocketChannel.open();
+            try {
+                server.bind(new InetSocketAddress(port));
+                server.configureBlocking(false);
+                server.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (IOException e) {
+                server.close();
+                selector.close();
+                throw e;
+            }
+        } else {
+            server = null;
+        }
+        this.dispatcher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "p2p-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ioThread = new Thread(this::runLoop, "p2p-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    public int getLocalPort() {
+        try {
+            return server != null ? ((InetSocketAddress) server.getLocalAddress()).getPort() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Open (and keep re-opening) an outbound connection to the peer
+    public void connect(Peer peer) {
+        Connection connection = new Connection(peer);
+        if (connections.putIfAbsent(peer.getId(), connection) == null) {
+            submit(() -> open(connection));
+        }
+    }
+
+    public void disconnect(String peerId) {
+        Connection connection = connections.remove(peerId);
+        if (connection != null) {
+            submit(() -> closeChannel(connection));
+        }
+    }
+
+    public static ByteBuffer frame(MessageType type, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(1 + payload.length).put(type.getCode()).put(payload).flip();
+        return frame.asReadOnlyBuffer();
+    }
+
+    // Returns false when the peer is unknown or its send queue is full
+    public boolean send(String peerId, ByteBuffer frame) {
+        Connection connection = connections.get(peerId);
+        return connection != null && enqueue(connection, frame.duplicate());
+    }
+
+    // Encodes the frame once and enqueues it for every peer; returns how many peers accepted it
+    public int broadcast(MessageType type, byte[] payload) {
+        ByteBuffer frame = frame(type, payload);
+        int accepted = 0;
+        for (Connection connection : connections.values()) {
+            if (enqueue(connection, frame.duplicate())) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    public int getQueueDepth(String peerId) {
+        Connection connection = connections.get(peerId);
+        return connection != null ? connection.outbound.size() : 0;
+    }
+
+    public long getDroppedFrames(String peerId) {
+        Connection connection = connections.get(peerId);
+        return connection != null ? connection.dropped.get() : 0;
+    }
+
+    public boolean isConnected(String peerId) {
+        Connection connection = connections.get(peerId);
+        return connection != null && connection.connected;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatcher.shutdownNow();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private boolean enqueue(Connection connection, ByteBuffer frame) {
+        if (!connection.outbound.offer(frame)) {
+            connection.dropped.incrementAndGet();
+            return false;
+        }
+        if (connection.writeScheduled.compareAndSet(false, true)) {
+            submit(() -> enableWrite(connection));
+        }
+        return true;
+    }
+
+    private void submit(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                reconnectDue();
+            } catch (IOException e) {
+                logger.error("Peer transport selector failure", e);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                finishConnect(connection);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(connection);
+            }
+        } catch (IOException e) {
+            logger.debug("Connection to {} failed: {}", connection.label(), e.getMessage());
+            closeChannel(connection);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = server.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(null);
+            connection.channel = channel;
+            connection.connected = true;
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            logger.debug("Accepted peer connection from {}", channel.getRemoteAddress());
+        } catch (IOException e) {
+            logger.warn("Failed to accept peer connection: {}", e.getMessage());
+        }
+    }
+
+    // Runs on the io thread, either queued by connect() or from reconnectDue(); whichever comes
+    // second finds the channel already set and leaves it alone
+    private void open(Connection connection) {
+        if (!running || connection.channel != null || connections.get(connection.peer.getId()) != connection) {
+            return;
+        }
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            connection.channel = channel;
+            if (channel.connect(connection.peer.getSocketAddress())) {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                onConnected(connection);
+            } else {
+                connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot connect to {}: {}", connection.label(), e.getMessage());
+            closeChannel(connection);
+        }
+    }
+
+    private void finishConnect(Connection connection) throws IOException {
+        if (connection.channel.finishConnect()) {
+            connection.key.interestOps(SelectionKey.OP_READ);
+            onConnected(connection);
+        }
+    }
+
+    private void onConnected(Connection connection) {
+        connection.connected = true;
+        connection.failures = 0;
+        logger.info("Connected to peer {}", connection.label());
+        connection.writeScheduled.set(true);
+        enableWrite(connection);
+    }
+
+    private void enableWrite(Connection connection) {
+        SelectionKey key = connection.key;
+        if (connection.connected && key != null && key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        } else {
+            // Not connected yet: onConnected re-enables writes
+            connection.writeScheduled.set(false);
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        while (true) {
+            if (connection.writing == null) {
+                connection.writing = connection.outbound.poll();
+                if (connection.writing == null) {
+                    connection.key.interestOps(SelectionKey.OP_READ);
+                    connection.writeScheduled.set(false);
+                    // A frame enqueued between the poll and the flag reset would otherwise wait
+                    if (!connection.outbound.isEmpty() && connection.writeScheduled.compareAndSet(false, true)) {
+                        connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                    return;
+                }
+            }
+            connection.channel.write(connection.writing);
+            if (connection.writing.hasRemaining()) {
+                return; // socket buffer full; wait for the next OP_WRITE
+            }
+            connection.writing = null;
+            connection.sent.incrementAndGet();
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer buffer = connection.readBuffer;
+        if (connection.channel.read(buffer) < 0) {
+            throw new IOException("connection closed by peer");
+        }
+        buffer.flip();
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt(buffer.position());
+            if (length < 1 || length > maxFrameSize + 1) {
+                throw new IOException("invalid frame length " + length);
+            }
+            if (buffer.remaining() < 4 + length) {
+                if (buffer.capacity() < 4 + length) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(4 + length, buffer.capacity() * 2));
+                    larger.put(buffer);
+                    connection.readBuffer = larger;
+                    return;
+                }
+                break;
+            }
+            buffer.getInt();
+            MessageType type = MessageType.fromCode(buffer.get());
+            byte[] payload = new byte[length - 1];
+            buffer.get(payload);
+            if (type != null) {
+                String source = connection.label();
+                dispatcher.execute(() -> deliver(type, payload, source));
+            }
+        }
+        buffer.compact();
+    }
+
+    private void deliver(MessageType type, byte[] payload, String source) {
+        try {
+            listener.onMessage(type, payload, source);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to handle {} message from {}: {}", type, source, e.getMessage());
+        }
+    }
+
+    private void closeChannel(Connection connection) {
+        connection.connected = false;
+        connection.writing = null;
+        connection.writeScheduled.set(false);
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        if (connection.channel != null) {
+            try {
+                connection.channel.close();
+            } catch (IOException ignored) {
+                // already closing
+            }
+        }
+        connection.key = null;
+        connection.channel = null;
+        if (connection.peer != null) {
+            long delay = Math.min(MAX_RECONNECT_DELAY_MS, 500L << Math.min(connection.failures, 6));
+            connection.failures++;
+            connection.reconnectAt = System.currentTimeMillis() + delay;
+        }
+    }
+
+    private void reconnectDue() {
+        long now = System.currentTimeMillis();
+        for (Connection connection : connections.values()) {
+            if (connection.channel == null && connection.reconnectAt <= now) {
+                open(connection);
+            }
+        }
+    }
+
+    private final class Connection {
+        private final Peer peer;
+        private final ArrayBlockingQueue<ByteBuffer> outbound;
+        private final AtomicBoolean writeScheduled = new AtomicBoolean();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean connected;
+        private SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer writing;
+        private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+        private int failures;
+        private long reconnectAt;
+
+        private Connection(Peer peer) {
+            this.peer = peer;
+            this.outbound = new ArrayBlockingQueue<>(peer != null ? sendQueueSize : 1);
+        }
+
+        private String label() {
+            if (peer != null) {
+                return peer.getIp() + ":" + peer.getPort();
+            }
+            try {
+                return String.valueOf(channel.getRemoteAddress());
+            } catch (IOException | RuntimeException e) {
+                return "inbound";
+            }
+        }
+    }
+}
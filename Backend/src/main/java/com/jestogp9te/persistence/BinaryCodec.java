@@ -0,0 +1,210 @@
+package com.jestogp9te.persistence;
+
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.token.LedgerUpdate;
+import java.math.BigInteger;
+import com.jestogp9te.util.HashUtil;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary encoding of chain data. Counts and lengths are unsigned LEB128 varints,
+// hashes are written as their raw 32 bytes and fixed-width numbers are big-endian.
+//
+// Transaction: sender (string) | recipient (string) | amount (8) | fee (8) |
+//              signature (bytes, optional)
+// Block:       index (varint) | timestamp (8) | previous hash (32) | Merkle root (32) |
+//              hash (32) | nonce (4) | bits (4) | transaction count (varint) | transactions
+// Chain tip:   height (varint) | hash (32) | total transactions (varint)
+// Ledger:      update count (varint) | updates, each kind (1) | key (string) |
+//              amount (0 and varint, or 1 and BigInteger bytes)
+public final class BinaryCodec {
+
+    private static final byte LONG_AMOUNT = 0;
+    private static final byte BIG_AMOUNT = 1;
+    private static final LedgerUpdate.Kind[] LEDGER_KINDS = LedgerUpdate.Kind.values();
+
+    private BinaryCodec() {
+    }
+
+    public static void encodeBlock(Block block, ByteBuffer out) {
+        writeVarint(out, block.getIndex());
+        out.putLong(block.getTimestamp());
+        writeHash(out, block.getPreviousHash());
+        writeHash(out, block.getMerkleRoot());
+        writeHash(out, block.getHash());
+        out.putInt(block.getNonce());
+        out.putInt(block.getBits());
+        List<Transaction> transactions = block.getTransactions();
+        writeVarint(out, transactions.size());
+        for (Transaction tx : transactions) {
+            encodeTransaction(tx, out);
+        }
+    }
+
+    public static Block decodeBlock(ByteBuffer in) {
+        int index = (int) readVarint(in);
+        long timestamp = in.getLong();
+        String previousHash = readHash(in);
+        String merkleRoot = readHash(in);
+        String hash = readHash(in);
+        int nonce = in.getInt();
+        int bits = in.getInt();
+        int count = (int) readVarint(in);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(decodeTransaction(in));
+        }
+        return new Block(index, timestamp, transactions, previousHash, merkleRoot, nonce, bits, hash);
+    }
+
+    public static void encodeTransaction(Transaction tx, ByteBuffer out) {
+        writeString(out, tx.getSender());
+        writeString(out, tx.getRecipient());
+        out.putDouble(tx.getAmount());
+        out.putDouble(tx.getFee());
+        writeOptionalBytes(out, tx.getSignature());
+    }
+
+    public static Transaction decodeTransaction(ByteBuffer in) {
+        Transaction tx = new Transaction(readString(in), readString(in), in.getDouble());
+        tx.setFee(in.getDouble());
+        tx.setSignature(readOptionalBytes(in));
+        return tx;
+    }
+
+    public static void encodeTip(ChainTip tip, ByteBuffer out) {
+        writeVarint(out, tip.getHeight());
+        writeHash(out, tip.getHash());
+        writeVarint(out, tip.getTotalTransactions());
+    }
+
+    public static ChainTip decodeTip(ByteBuffer in) {
+        int height = (int) readVarint(in);
+        String hash = readHash(in);
+        long totalTransactions = readVarint(in);
+        return new ChainTip(height, hash, totalTransactions);
+    }
+
+    public static void encodeLedgerUpdates(List<LedgerUpdate> updates, ByteBuffer out) {
+        writeVarint(out, updates.size());
+        for (LedgerUpdate update : updates) {
+            out.put((byte) update.getKind().ordinal());
+            writeString(out, update.getKey());
+            if (update.getBigValue() != null) {
+                out.put(BIG_AMOUNT);
+                writeBytes(out, update.getBigValue().toByteArray());
+            } else {
+                out.put(LONG_AMOUNT);
+                writeVarint(out, update.getValue());
+            }
+        }
+    }
+
+    public static List<LedgerUpdate> decodeLedgerUpdates(ByteBuffer in) {
+        int count = (int) readVarint(in);
+        List<LedgerUpdate> updates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = in.get();
+            if (kind < 0 || kind >= LEDGER_KINDS.length) {
+                throw new StorageException("Unknown ledger update kind " + kind);
+            }
+            String key = readString(in);
+            if (in.get() == BIG_AMOUNT) {
+                updates.add(new LedgerUpdate(LEDGER_KINDS[kind], key, 0, new BigInteger(readBytes(in))));
+            } else {
+                updates.add(new LedgerUpdate(LEDGER_KINDS[kind], key, readVarint(in), null));
+            }
+        }
+        return updates;
+    }
+
+    public static void writeVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StorageException("Malformed varint");
+    }
+
+    // Hex hash strings are packed straight into the buffer without an intermediate byte[]
+    public static void writeHash(ByteBuffer out, String hex) {
+        if (hex == null || hex.length() != HashUtil.HASH_LENGTH * 2) {
+            throw new IllegalArgumentException("Expected a 32-byte hex hash: " + hex);
+        }
+        for (int i = 0; i < hex.length(); i += 2) {
+            int high = Character.digit(hex.charAt(i), 16);
+            int low = Character.digit(hex.charAt(i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hex hash: " + hex);
+            }
+            out.put((byte) ((high << 4) | low));
+        }
+    }
+
+    public static String readHash(ByteBuffer in) {
+        byte[] hash = new byte[HashUtil.HASH_LENGTH];
+        in.get(hash);
+        return HashUtil.toHex(hash);
+    }
+
+    public static void writeString(ByteBuffer out, String value) {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    public static void writeBytes(ByteBuffer out, byte[] value) {
+        writeVarint(out, value.length);
+        out.put(value);
+    }
+
+    public static byte[] readBytes(ByteBuffer in) {
+        int length = (int) readVarint(in);
+        if (length > in.remaining()) {
+            throw new StorageException("Length " + length + " exceeds remaining record size");
+        }
+        byte[] value = new byte[length];
+        in.get(value);
+        return value;
+    }
+
+    // Length is stored plus one so that 0 can mark an absent value
+    public static void writeOptionalBytes(ByteBuffer out, byte[] value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, value.length + 1L);
+        out.put(value);
+    }
+
+    public static byte[] readOptionalBytes(ByteBuffer in) {
+        long length = readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > in.remaining()) {
+            throw new StorageException("Length " + (length - 1) + " exceeds remaining record size");
+        }
+        byte[] value = new byte[(int) (length - 1)];
+        in.get(value);
+        return value;
+    }
+}
@@ -0,0 +1,128 @@
+package com.jestogp9te.persistence;
+
+import com.jestogp9te.blockchain.Block;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+// Durable block storage. Layout in LevelDB (records are encoded by SerializationUtil):
+//   block:<hash>    -> block record
+//   height:<n>      -> hash of the block at height n
+//   chain:tip       -> height, hash and total transaction count of the current tip
+//   chain:validated -> height up to which the chain has been validated
+// plus the transaction and address indexes maintained by TransactionIndex.
+@Component
+public class BlockStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockStore.class);
+
+    private static final String BLOCK_PREFIX = "block:";
+    private static final String HEIGHT_PREFIX = "height:";
+    private static final String TIP_KEY = "chain:tip";
+    private static final String VALIDATED_KEY = "chain:validated";
+
+    // Recently used blocks kept on heap; everything else is read from LevelDB on demand
+    private static final int CACHE_SIZE = 1024;
+
+    private final LevelDBManager db;
+    private final TransactionIndex index;
+    private final Map<Integer, Block> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    public BlockStore(@Qualifier("blockDatabase") LevelDBManager db) {
+        this.db = db;
+        this.index = new TransactionIndex(db);
+    }
+
+    // Block, height entry, tip pointer, validation watermark and transaction indexes are
+    // written in one atomic batch
+    public void append(Block block, int validatedHeight, long totalTransactions) {
+        try (LevelDBManager.Batch batch = db.batch()) {
+            batch.put(BLOCK_PREFIX + block.getHash(), SerializationUtil.serialize(block))
+                    .put(HEIGHT_PREFIX + block.getIndex(), SerializationUtil.serializeHash(block.getHash()))
+                    .put(TIP_KEY, SerializationUtil.serialize(
+                            new ChainTip(block.getIndex(), block.getHash(), totalTransactions)))
+                    .put(VALIDATED_KEY, SerializationUtil.serializeHeight(validatedHeight));
+            index.stage(block, batch);
+            batch.commit();
+        } catch (IOException e) {
+            throw new StorageException("Failed to store block " + block.getIndex(), e);
+        }
+        cache.put(block.getIndex(), block);
+        logger.debug("Stored block {} ({})", block.getIndex(), block.getHash());
+    }
+
+    // Only the tip is read at startup; older blocks load lazily through getBlock
+    public Block loadTip() {
+        byte[] record = db.get(TIP_KEY);
+        if (record == null) {
+            return null;
+        }
+        Block tip = getBlockByHash(SerializationUtil.deserializeTip(record).getHash());
+        if (tip == null) {
+            throw new StorageException("Chain tip points to a missing block");
+        }
+        cache.put(tip.getIndex(), tip);
+        return tip;
+    }
+
+    // Running transaction total stored with the tip; 0 for an empty store
+    public long loadTotalTransactions() {
+        byte[] record = db.get(TIP_KEY);
+        return record != null ? SerializationUtil.deserializeTip(record).getTotalTransactions() : 0;
+    }
+
+    public void saveValidatedHeight(int height) {
+        db.put(VALIDATED_KEY, SerializationUtil.serializeHeight(height));
+    }
+
+    // Written with every block, so it is only missing from an empty store
+    public int loadValidatedHeight() {
+        byte[] record = db.get(VALIDATED_KEY);
+        return record != null ? SerializationUtil.deserializeHeight(record) : 0;
+    }
+
+    public Block getBlock(int height) {
+        Block block = cache.get(height);
+        if (block != null) {
+            return block;
+        }
+        byte[] hash = db.get(HEIGHT_PREFIX + height);
+        if (hash == null) {
+            return null;
+        }
+        block = getBlockByHash(SerializationUtil.deserializeHash(hash));
+        if (block != null) {
+            cache.put(height, block);
+        }
+        return block;
+    }
+
+    public Block getBlockByHash(String hash) {
+        byte[] data = db.get(BLOCK_PREFIX + hash);
+        return data != null ? SerializationUtil.deserializeBlock(data) : null;
+    }
+
+    public TransactionLocation findTransaction(String txHash) {
+        return index.find(txHash);
+    }
+
+    public long getAddressTransactionCount(String address) {
+        return index.getAddressCount(address);
+    }
+
+    public List<TransactionLocation> findAddressTransactions(String address, long offset, int limit) {
+        return index.findByAddress(address, offset, limit);
+    }
+}
@@ -0,0 +1,27 @@
+package com.jestogp9te.persistence;
+
+// Chain metadata stored under the tip pointer
+public class ChainTip {
+    private final int height;
+    private final String hash;
+    // Transactions in all blocks up to the tip
+    private final long totalTransactions;
+
+    public ChainTip(int height, String hash, long totalTransactions) {
+        this.height = height;
+        this.hash = hash;
+        this.totalTransactions = totalTransactions;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getTotalTransactions() {
+        return totalTransactions;
+    }
+}
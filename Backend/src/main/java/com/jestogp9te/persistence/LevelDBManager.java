@@ -4,6 +4,9 @@ import org.iq80.leveldb.*;
 import static org.fusesource.leveldbjni.JniDBFactory.*;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 public class LevelDBManager {
     private final DB db;
@@ -11,7 +14,9 @@ public class LevelDBManager {
     public LevelDBManager(String dbPath) throws IOException {
         Options options = new Options();
         options.createIfMissing(true);
-        db = factory.open(new java.io.File(dbPath), options);
+        java.io.File dir = new java.io.File(dbPath);
+        java.nio.file.Files.createDirectories(dir.toPath());
+        db = factory.open(dir, options);
     }
 
     public void put(String key, byte[] value) {
@@ -26,6 +31,28 @@ public class LevelDBManager {
         db.delete(bytes(key));
     }
 
+    // Visit all entries whose key starts with the prefix, in key order
+    public void forEachWithPrefix(String prefix, BiConsumer<String, byte[]> action) {
+        byte[] start = bytes(prefix);
+        try (DBIterator iterator = db.iterator()) {
+            for (iterator.seek(start); iterator.hasNext(); ) {
+                Map.Entry<byte[], byte[]> entry = iterator.next();
+                byte[] key = entry.getKey();
+                if (key.length < start.length || !Arrays.equals(key, 0, start.length, start, 0, start.length)) {
+                    return;
+                }
+                action.accept(new String(key, StandardCharsets.UTF_8), entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to iterate over " + prefix, e);
+        }
+    }
+
+    // Collect several mutations and apply them atomically with Batch.commit()
+    public Batch batch() {
+        return new Batch(db.createWriteBatch());
+    }
+
     public void close() throws IOException {
         db.close();
     }
@@ -33,4 +60,36 @@ public class LevelDBManager {
     private static byte[] bytes(String str) {
         return str.getBytes(StandardCharsets.UTF_8);
     }
+
+    public class Batch implements AutoCloseable {
+        private final WriteBatch writeBatch;
+
+        private Batch(WriteBatch writeBatch) {
+            this.writeBatch = writeBatch;
+        }
+
+        public Batch put(String key, byte[] value) {
+            writeBatch.put(bytes(key), value);
+            return this;
+        }
+
+        public Batch delete(String key) {
+            writeBatch.delete(bytes(key));
+            return this;
+        }
+
+        public void commit() {
+            db.write(writeBatch);
+        }
+
+        // With sync the call returns only after the batch has been flushed to disk
+        public void commit(boolean sync) {
+            db.write(writeBatch, new WriteOptions().sync(sync));
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeBatch.close();
+        }
+    }
 }
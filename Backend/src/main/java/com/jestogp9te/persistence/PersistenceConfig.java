@@ -0,0 +1,25 @@
+package com.jestogp9te.persistence;
+
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    public LevelDBManager blockDatabase(@Value("${blockchain.leveldb.path}") String path) throws IOException {
+        return new LevelDBManager(path);
+    }
+
+    @Bean(destroyMethod = "close")
+    public LevelDBManager walletDatabase(@Value("${wallet.leveldb.path}") String path) throws IOException {
+        return new LevelDBManager(path);
+    }
+
+    @Bean(destroyMethod = "close")
+    public LevelDBManager tokenDatabase(@Value("${token.leveldb.path}") String path) throws IOException {
+        return new LevelDBManager(path);
+    }
+}
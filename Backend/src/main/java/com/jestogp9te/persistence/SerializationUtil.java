@@ -1,21 +1,189 @@
 package com.jestogp9te.persistence;
 
-import java.io.*;
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.token.LedgerUpdate;
+import com.jestogp9te.util.HashUtil;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Consumer;
 
+// Versioned records built on BinaryCodec. Every record starts with a one-byte format
+// version so the layout can evolve without breaking data that is already on disk.
 public class SerializationUtil {
 
-    public static byte[] serialize(Object obj) throws IOException {
-        try(ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream out = new ObjectOutputStream(bos)) {
-            out.writeObject(obj);
-            return bos.toByteArray();
+    public static final byte BLOCK_RECORD_VERSION = 1;
+    public static final byte TRANSACTION_RECORD_VERSION = 1;
+    public static final byte LEDGER_RECORD_VERSION = 1;
+    public static final byte METADATA_RECORD_VERSION = 1;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    // Per-thread scratch buffer, grown on demand, so encoding allocates only the final array
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    private SerializationUtil() {
+    }
+
+    public static byte[] serialize(Block block) {
+        return encode(BLOCK_RECORD_VERSION, out -> BinaryCodec.encodeBlock(block, out));
+    }
+
+    public static Block deserializeBlock(byte[] data) {
+        ByteBuffer in = open(data, BLOCK_RECORD_VERSION, "block");
+        try {
+            return BinaryCodec.decodeBlock(in);
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated block record", e);
+        }
+    }
+
+    public static byte[] serialize(Transaction tx) {
+        return encode(TRANSACTION_RECORD_VERSION, out -> BinaryCodec.encodeTransaction(tx, out));
+    }
+
+    public static Transaction deserializeTransaction(byte[] data) {
+        ByteBuffer in = open(data, TRANSACTION_RECORD_VERSION, "transaction");
+        try {
+            return BinaryCodec.decodeTransaction(in);
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated transaction record", e);
+        }
+    }
+
+    public static byte[] serialize(List<LedgerUpdate> updates) {
+        return encode(LEDGER_RECORD_VERSION, out -> BinaryCodec.encodeLedgerUpdates(updates, out));
+    }
+
+    public static List<LedgerUpdate> deserializeLedgerUpdates(byte[] data) {
+        ByteBuffer in = open(data, LEDGER_RECORD_VERSION, "ledger");
+        try {
+            return BinaryCodec.decodeLedgerUpdates(in);
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated ledger record", e);
         }
     }
 
-    public static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
-        try(ByteArrayInputStream bis = new ByteArrayInputStream(data);
-            ObjectInputStream in = new ObjectInputStream(bis)) {
-            return in.readObject();
+    public static byte[] serialize(ChainTip tip) {
+        return encode(METADATA_RECORD_VERSION, out -> BinaryCodec.encodeTip(tip, out));
+    }
+
+    public static ChainTip deserializeTip(byte[] data) {
+        ByteBuffer in = open(data, METADATA_RECORD_VERSION, "chain tip");
+        try {
+            return BinaryCodec.decodeTip(in);
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated chain tip record", e);
+        }
+    }
+
+    public static byte[] serializeHeight(int height) {
+        return encode(METADATA_RECORD_VERSION, out -> BinaryCodec.writeVarint(out, height));
+    }
+
+    public static int deserializeHeight(byte[] data) {
+        ByteBuffer in = open(data, METADATA_RECORD_VERSION, "height");
+        try {
+            return (int) BinaryCodec.readVarint(in);
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated height record", e);
+        }
+    }
+
+    public static byte[] serialize(TransactionLocation location) {
+        return encode(METADATA_RECORD_VERSION, out -> {
+            BinaryCodec.writeVarint(out, location.getHeight());
+            BinaryCodec.writeVarint(out, location.getPosition());
+        });
+    }
+
+    public static TransactionLocation deserializeLocation(byte[] data) {
+        ByteBuffer in = open(data, METADATA_RECORD_VERSION, "transaction location");
+        try {
+            return new TransactionLocation((int) BinaryCodec.readVarint(in), (int) BinaryCodec.readVarint(in));
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated transaction location record", e);
+        }
+    }
+
+    public static byte[] serializeCount(long count) {
+        return encode(METADATA_RECORD_VERSION, out -> BinaryCodec.writeVarint(out, count));
+    }
+
+    public static long deserializeCount(byte[] data) {
+        ByteBuffer in = open(data, METADATA_RECORD_VERSION, "count");
+        try {
+            return BinaryCodec.readVarint(in);
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated count record", e);
+        }
+    }
+
+    public static byte[] serializeCounts(long... counts) {
+        return encode(METADATA_RECORD_VERSION, out -> {
+            for (long count : counts) {
+                BinaryCodec.writeVarint(out, count);
+            }
+        });
+    }
+
+    public static long[] deserializeCounts(byte[] data, int expected) {
+        ByteBuffer in = open(data, METADATA_RECORD_VERSION, "counts");
+        try {
+            long[] counts = new long[expected];
+            for (int i = 0; i < expected; i++) {
+                counts[i] = BinaryCodec.readVarint(in);
+            }
+            return counts;
+        } catch (BufferUnderflowException e) {
+            throw new StorageException("Truncated counts record", e);
+        }
+    }
+
+    // Hash references are stored raw
+    public static byte[] serializeHash(String hash) {
+        return HashUtil.fromHex(hash);
+    }
+
+    public static String deserializeHash(byte[] data) {
+        if (data.length != HashUtil.HASH_LENGTH) {
+            throw new StorageException("Invalid hash record length " + data.length);
+        }
+        return HashUtil.toHex(data);
+    }
+
+    private static byte[] encode(byte version, Consumer<ByteBuffer> writer) {
+        ByteBuffer buffer = BUFFER.get();
+        while (true) {
+            buffer.clear();
+            try {
+                buffer.put(version);
+                writer.accept(buffer);
+                byte[] record = new byte[buffer.position()];
+                buffer.flip();
+                buffer.get(record);
+                return record;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                if (buffer.capacity() <= MAX_RETAINED_BUFFER_SIZE) {
+                    BUFFER.set(buffer);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer open(byte[] data, byte supportedVersion, String type) {
+        if (data.length == 0) {
+            throw new StorageException("Empty " + type + " record");
+        }
+        byte version = data[0];
+        if (version < 1 || version > supportedVersion) {
+            throw new StorageException("Unsupported " + type + " record version " + version);
         }
+        return ByteBuffer.wrap(data, 1, data.length - 1);
     }
 }
@@ -0,0 +1,215 @@
+package com.jestogp9te.persistence;
+
+import com.jestogp9te.token.LedgerUpdate;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Durable token ledger: a write-ahead log of ledger updates plus periodic snapshots.
+// Layout in LevelDB (records are encoded by SerializationUtil):
+//   wal:<seq>        -> updates of one mutation; seq is zero-padded so keys sort numerically
+//   snapshot:<n>     -> n-th chunk of the full ledger as of the snapshot
+//   token:snapshot   -> WAL sequence the snapshot covers and its chunk count
+//
+// Appends only enqueue; a single committer thread writes everything queued since its last
+// write as one synced batch, so concurrent mutations share the cost of each fsync. Recovery
+// loads the snapshot and replays only the WAL entries written after it.
+public class TokenStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenStore.class);
+
+    private static final String WAL_PREFIX = "wal:";
+    private static final String SNAPSHOT_PREFIX = "snapshot:";
+    private static final String SNAPSHOT_META_KEY = "token:snapshot";
+    private static final int SNAPSHOT_CHUNK_SIZE = 10_000;
+    private static final int MAX_GROUP_SIZE = 8192;
+
+    private final LevelDBManager db;
+    private final boolean sync;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong entriesSinceSnapshot = new AtomicLong();
+    private final LinkedBlockingQueue<PendingEntry> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public TokenStore(LevelDBManager db, boolean sync) {
+        this.db = db;
+        this.sync = sync;
+        this.committer = new Thread(this::runCommitter, "token-wal");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // Callers serialize appends that touch the same ledger entry, so per-entry WAL order is
+    // the order the mutations were applied in
+    public CompletableFuture<Void> append(List<LedgerUpdate> updates) {
+        PendingEntry entry = new PendingEntry(sequence.incrementAndGet(), updates);
+        queue.add(entry);
+        entriesSinceSnapshot.incrementAndGet();
+        return entry.done;
+    }
+
+    public long getLastSequence() {
+        return sequence.get();
+    }
+
+    public long getEntriesSinceSnapshot() {
+        return entriesSinceSnapshot.get();
+    }
+
+    // Feeds the snapshot and then the WAL tail to the consumer; false if nothing was stored yet
+    public boolean recover(Consumer<LedgerUpdate> apply) {
+        long started = System.nanoTime();
+        long snapshotSequence = 0;
+        long snapshotUpdates = 0;
+        byte[] meta = db.get(SNAPSHOT_META_KEY);
+        if (meta != null) {
+            long[] snapshot = SerializationUtil.deserializeCounts(meta, 2);
+            snapshotSequence = snapshot[0];
+            for (int chunk = 0; chunk < snapshot[1]; chunk++) {
+                byte[] record = db.get(SNAPSHOT_PREFIX + chunk);
+                if (record == null) {
+                    throw new StorageException("Missing token snapshot chunk " + chunk);
+                }
+                for (LedgerUpdate update : SerializationUtil.deserializeLedgerUpdates(record)) {
+                    apply.accept(update);
+                    snapshotUpdates++;
+                }
+            }
+        }
+        long coveredSequence = snapshotSequence;
+        long[] last = {snapshotSequence};
+        long[] replayed = {0};
+        db.forEachWithPrefix(WAL_PREFIX, (key, record) -> {
+            long seq = Long.parseLong(key.substring(WAL_PREFIX.length()));
+            if (seq <= coveredSequence) {
+                return; // compaction after the last snapshot did not finish
+            }
+            SerializationUtil.deserializeLedgerUpdates(record).forEach(apply);
+            last[0] = Math.max(last[0], seq);
+            replayed[0]++;
+        });
+        sequence.set(last[0]);
+        entriesSinceSnapshot.set(replayed[0]);
+        logger.info("Recovered token ledger: {} snapshot entries, {} WAL entries replayed in {} ms",
+                snapshotUpdates, replayed[0], (System.nanoTime() - started) / 1_000_000);
+        return meta != null || replayed[0] > 0;
+    }
+
+    // State must be a consistent view that includes every WAL entry up to coveredSequence
+    public void writeSnapshot(long coveredSequence, List<LedgerUpdate> state) {
+        byte[] previous = db.get(SNAPSHOT_META_KEY);
+        long previousChunks = previous != null ? SerializationUtil.deserializeCounts(previous, 2)[1] : 0;
+        int chunks = (state.size() + SNAPSHOT_CHUNK_SIZE - 1) / SNAPSHOT_CHUNK_SIZE;
+        try (LevelDBManager.Batch batch = db.batch()) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                List<LedgerUpdate> part = state.subList(chunk * SNAPSHOT_CHUNK_SIZE,
+                        Math.min(state.size(), (chunk + 1) * SNAPSHOT_CHUNK_SIZE));
+                batch.put(SNAPSHOT_PREFIX + chunk, SerializationUtil.serialize(part));
+            }
+            for (int chunk = chunks; chunk < previousChunks; chunk++) {
+                batch.delete(SNAPSHOT_PREFIX + chunk);
+            }
+            batch.put(SNAPSHOT_META_KEY, SerializationUtil.serializeCounts(coveredSequence, chunks));
+            batch.commit(true);
+        } catch (IOException e) {
+            throw new StorageException("Failed to write token snapshot", e);
+        }
+        entriesSinceSnapshot.set(sequence.get() - coveredSequence);
+        int removed = truncateLog(coveredSequence);
+        logger.info("Token snapshot at WAL sequence {}: {} entries, {} WAL entries removed",
+                coveredSequence, state.size(), removed);
+    }
+
+    private int truncateLog(long coveredSequence) {
+        List<String> obsolete = new ArrayList<>();
+        db.forEachWithPrefix(WAL_PREFIX, (key, record) -> {
+            if (Long.parseLong(key.substring(WAL_PREFIX.length())) <= coveredSequence) {
+                obsolete.add(key);
+            }
+        });
+        for (int from = 0; from < obsolete.size(); from += MAX_GROUP_SIZE) {
+            try (LevelDBManager.Batch batch = db.batch()) {
+                for (String key : obsolete.subList(from, Math.min(obsolete.size(), from + MAX_GROUP_SIZE))) {
+                    batch.delete(key);
+                }
+                batch.commit();
+            } catch (IOException e) {
+                throw new StorageException("Failed to truncate token WAL", e);
+            }
+        }
+        return obsolete.size();
+    }
+
+    private void runCommitter() {
+        List<PendingEntry> group = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP_SIZE - 1);
+                commit(group);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingEntry> group) {
+        try (LevelDBManager.Batch batch = db.batch()) {
+            for (PendingEntry entry : group) {
+                batch.put(walKey(entry.sequence), SerializationUtil.serialize(entry.updates));
+            }
+            batch.commit(sync);
+            for (PendingEntry entry : group) {
+                entry.done.complete(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write {} token WAL entries", group.size(), e);
+            StorageException failure = new StorageException("Failed to write token WAL", e);
+            for (PendingEntry entry : group) {
+                entry.done.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private static String walKey(long seq) {
+        String digits = Long.toString(seq);
+        return WAL_PREFIX + "0".repeat(19 - digits.length()) + digits;
+    }
+
+    // Drains the queue before returning
+    @Override
+    public void close() {
+        running = false;
+        try {
+            committer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PendingEntry {
+        private final long sequence;
+        private final List<LedgerUpdate> updates;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingEntry(long sequence, List<LedgerUpdate> updates) {
+            this.sequence = sequence;
+            this.updates = updates;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.jestogp9te.persistence;
+
+import com.jestogp9te.blockchain.Block;
+import com.jestogp9te.blockchain.Transaction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Secondary indexes over confirmed transactions, kept in the block database:
+//   tx:<hash>              -> location of the transaction
+//   addrcount:<address>    -> number of transactions touching the address
+//   addrtx:<address>:<seq> -> location of the address's seq-th transaction (0 = oldest)
+//
+// Entries are staged into the same batch that stores the block, so the indexes never run
+// ahead of or behind the chain. Writers are serialized by the chain lock. Blockchain refuses
+// blocks that repeat a transaction hash, so each tx:<hash> entry is written exactly once.
+class TransactionIndex {
+
+    private static final String TX_PREFIX = "tx:";
+    private static final String ADDRESS_COUNT_PREFIX = "addrcount:";
+    private static final String ADDRESS_TX_PREFIX = "addrtx:";
+
+    private final LevelDBManager db;
+
+    TransactionIndex(LevelDBManager db) {
+        this.db = db;
+    }
+
+    void stage(Block block, LevelDBManager.Batch batch) {
+        Map<String, Long> counts = new HashMap<>();
+        List<Transaction> transactions = block.getTransactions();
+        for (int position = 0; position < transactions.size(); position++) {
+            Transaction tx = transactions.get(position);
+            byte[] location = SerializationUtil.serialize(new TransactionLocation(block.getIndex(), position));
+            batch.put(TX_PREFIX + tx.calculateHash(), location);
+            stageAddress(tx.getSender(), location, counts, batch);
+            if (tx.getRecipient() != null && !tx.getRecipient().equals(tx.getSender())) {
+                stageAddress(tx.getRecipient(), location, counts, batch);
+            }
+        }
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            batch.put(ADDRESS_COUNT_PREFIX + count.getKey(), SerializationUtil.serializeCount(count.getValue()));
+        }
+    }
+
+    private void stageAddress(String address, byte[] location, Map<String, Long> counts, LevelDBManager.Batch batch) {
+        if (address == null) {
+            return;
+        }
+        long seq = counts.computeIfAbsent(address, this::getAddressCount);
+        batch.put(addressEntryKey(address, seq), location);
+        counts.put(address, seq + 1);
+    }
+
+    TransactionLocation find(String txHash) {
+        byte[] record = db.get(TX_PREFIX + txHash);
+        return record != null ? SerializationUtil.deserializeLocation(record) : null;
+    }
+
+    long getAddressCount(String address) {
+        byte[] record = db.get(ADDRESS_COUNT_PREFIX + address);
+        return record != null ? SerializationUtil.deserializeCount(record) : 0;
+    }
+
+    // Newest first: offset 0 is the address's most recent transaction
+    List<TransactionLocation> findByAddress(String address, long offset, int limit) {
+        long total = getAddressCount(address);
+        List<TransactionLocation> locations = new ArrayList<>();
+        for (long seq = total - 1 - offset; seq >= 0 && locations.size() < limit; seq--) {
+            byte[] record = db.get(addressEntryKey(address, seq));
+            if (record == null) {
+                throw new StorageException("Missing address index entry " + seq + " for " + address);
+            }
+            locations.add(SerializationUtil.deserializeLocation(record));
+        }
+        return locations;
+    }
+
+    private static String addressEntryKey(String address, long seq) {
+        return ADDRESS_TX_PREFIX + address + ":" + seq;
+    }
+}
@@ -0,0 +1,20 @@
+package com.jestogp9te.persistence;
+
+// Where a confirmed transaction lives: block height and position within the block
+public class TransactionLocation {
+    private final int height;
+    private final int position;
+
+    public TransactionLocation(int height, int position) {
+        this.height = height;
+        this.position = position;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,36 @@
+package com.jestogp9te.sharding;
+
+// Proof that a sealed block on the source shard debited the sender of a transfer whose
+// recipient lives on another shard. The recipient's shard credits the amount when it applies
+// the receipt; the id is unique because it points at the transfer's slot in the source block.
+public class CrossShardReceipt {
+    private final int sourceShard;
+    private final long sourceHeight;
+    private final int position;
+    private final String recipient;
+    private final double amount;
+
+    public CrossShardReceipt(int sourceShard, long sourceHeight, int position, String recipient, double amount) {
+        this.sourceShard = sourceShard;
+        this.sourceHeight = sourceHeight;
+        this.position = position;
+        this.recipient = recipient;
+        this.amount = amount;
+    }
+
+    public String getId() {
+        return sourceShard + ":" + sourceHeight + ":" + position;
+    }
+
+    // Getters
+    public int getSourceShard() { return sourceShard; }
+    public long getSourceHeight() { return sourceHeight; }
+    public int getPosition() { return position; }
+    public String getRecipient() { return recipient; }
+    public double getAmount() { return amount; }
+
+    @Override
+    public String toString() {
+        return getId() + "->" + recipient + ": " + amount;
+    }
+}
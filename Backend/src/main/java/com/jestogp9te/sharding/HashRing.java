@@ -0,0 +1,101 @@
+package com.jestogp9te.sharding;
+
+import com.jestogp9te.util.HashUtil;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+// Immutable consistent-hash ring. Every shard is placed at virtualNodes points derived from
+// SHA-256, and an address belongs to the first point at or after the SHA-256 of the address,
+// wrapping around. Adding or removing a shard only moves the ranges next to its points, about
+// 1/N of the accounts, instead of reshuffling nearly all of them like a modulo would.
+final class HashRing {
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(HashUtil::newSha256);
+
+    private final SortedSet<Integer> shardIds;
+    private final int virtualNodes;
+    private final long[] points; // sorted
+    private final int[] owners;
+
+    HashRing(Collection<Integer> shardIds, int virtualNodes) {
+        if (shardIds.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one shard and one virtual node");
+        }
+        this.shardIds = Collections.unmodifiableSortedSet(new TreeSet<>(shardIds));
+        this.virtualNodes = virtualNodes;
+        int size = this.shardIds.size() * virtualNodes;
+        long[][] placed = new long[size][];
+        int i = 0;
+        for (int shardId : this.shardIds) {
+            for (int v = 0; v < virtualNodes; v++) {
+                placed[i++] = new long[] {hash("shard-" + shardId + "#" + v), shardId};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (i = 0; i < size; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    HashRing withShard(int shardId) {
+        TreeSet<Integer> ids = new TreeSet<>(shardIds);
+        ids.add(shardId);
+        return new HashRing(ids, virtualNodes);
+    }
+
+    HashRing withoutShard(int shardId) {
+        TreeSet<Integer> ids = new TreeSet<>(shardIds);
+        ids.remove(shardId);
+        return new HashRing(ids, virtualNodes);
+    }
+
+    int ownerOf(String address) {
+        int slot = Arrays.binarySearch(points, hash(address));
+        if (slot < 0) {
+            slot = -slot - 1;
+        }
+        return owners[slot == points.length ? 0 : slot];
+    }
+
+    // Fraction of the hash space the shard owns, i.e. its expected share of accounts
+    double share(int shardId) {
+        double owned = 0;
+        for (int i = 0; i < points.length; i++) {
+            if (owners[i] == shardId) {
+                long arc = points[i] - points[i == 0 ? points.length - 1 : i - 1];
+                owned += arc == 0 && points.length == 1 ? 0x1p64 : unsigned(arc);
+            }
+        }
+        return owned / 0x1p64;
+    }
+
+    SortedSet<Integer> getShardIds() {
+        return shardIds;
+    }
+
+    int size() {
+        return shardIds.size();
+    }
+
+    private static double unsigned(long value) {
+        return (value >>> 1) * 2.0 + (value & 1);
+    }
+
+    // First 64 bits of the SHA-256 of the string
+    private static long hash(String value) {
+        byte[] digest = DIGEST.get().digest(value.getBytes(StandardCharsets.UTF_8));
+        long h = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            h = (h << 8) | (digest[i] & 0xff);
+        }
+        return h;
+    }
+}
@@ -1,32 +1,422 @@
 package com.jestogp9te.sharding;
 
+import com.jestogp9te.blockchain.Mempool;
 import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.util.HashUtil;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+// One partition of the account space with its own mempool, chain of shard blocks and balances.
+// Everything that touches the balances or assembles blocks runs on the shard's single executor
+// thread, so that state needs no locks and shards make progress independently of each other.
+// Other threads only admit transactions into the mempool, queue receipts and read counters.
+//
+// Transfers to an account on another shard are settled with receipts: this shard debits the
+// sender and records the transfer in its block, and only after the block is sealed hands a
+// CrossShardReceipt to the recipient's shard, which credits it in its own next block. Credits
+// cannot fail, so every debit is matched by exactly one credit.
+//
+// Ownership follows the ShardManager's hash ring. Each block is assembled against one ring
+// snapshot; work for accounts this shard no longer owns is forwarded to the new owner, and
+// while a resharding is running, transactions from accounts still in transit are held back
+// until their previous owner has handed over every balance.
 public class Shard {
+
+    private static final Logger logger = LoggerFactory.getLogger(Shard.class);
+
+    private static final int MIGRATION_CHUNK = 10_000;
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final int shardId;
-    private final List<Transaction> transactions;
+    private final ShardManager manager;
+    private final int maxBlockTransactions;
+    private final Mempool mempool;
+    private final Queue<CrossShardReceipt> inbox = new ConcurrentLinkedQueue<>();
+    private final Queue<MigratedAccount> migrationInbox = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean draining;
+    private volatile boolean migrating;
+    private volatile boolean retired;
+
+    // Owned by the executor thread
+    private final Map<String, Double> balances = new HashMap<>();
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowCount;
 
-    public Shard(int shardId) {
+    // Published by the executor thread for readers elsewhere
+    private volatile ShardBlock lastBlock;
+    private volatile int accountCount;
+    private volatile double transactionsPerSecond;
+    private volatile long rateMeasuredAt = System.nanoTime();
+    private final LongAdder routedTransactions = new LongAdder();
+    private final LongAdder appliedTransactions = new LongAdder();
+    private final LongAdder rejectedTransactions = new LongAdder();
+    private final LongAdder forwardedTransactions = new LongAdder();
+    private final LongAdder receiptsSent = new LongAdder();
+    private final LongAdder receiptsApplied = new LongAdder();
+    private final LongAdder accountsMigratedIn = new LongAdder();
+    private final LongAdder accountsMigratedOut = new LongAdder();
+
+    public Shard(int shardId, ShardManager manager, int maxBlockTransactions, long mempoolBytes) {
         this.shardId = shardId;
-        this.transactions = new ArrayList<>();
+        this.manager = manager;
+        this.maxBlockTransactions = maxBlockTransactions;
+        this.mempool = new Mempool(mempoolBytes);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "shard-" + shardId);
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public int getShardId() {
         return shardId;
     }
 
-    public void addTransaction(Transaction tx) {
-        transactions.add(tx);
+    // The sender should belong to this shard; anything else is forwarded when the block is built
+    public Mempool.AdmissionResult addTransaction(Transaction tx) {
+        if (retired) {
+            return manager.forward(tx);
+        }
+        Mempool.AdmissionResult result = mempool.add(tx);
+        if (result == Mempool.AdmissionResult.ACCEPTED) {
+            routedTransactions.increment();
+            scheduleDrain();
+        }
+        return result;
+    }
+
+    void deliver(CrossShardReceipt receipt) {
+        if (retired) {
+            manager.redeliver(receipt);
+            return;
+        }
+        inbox.add(receipt);
+        scheduleDrain();
+    }
+
+    void acceptMigrated(String address, double balance) {
+        migrationInbox.add(new MigratedAccount(address, balance));
+        accountsMigratedIn.increment();
+        scheduleDrain();
+    }
+
+    // Initial allocation outside of any block, e.g. to fund accounts for testing
+    public CompletableFuture<Void> credit(String address, double amount) {
+        return CompletableFuture.runAsync(() -> {
+            int owner = manager.getRing().ownerOf(address);
+            if (owner != shardId) {
+                manager.migrateAccount(owner, address, amount); // ring changed since routing
+                return;
+            }
+            balances.merge(address, amount, Double::sum);
+            accountCount = balances.size();
+        }, executor);
+    }
+
+    // An account that is being migrated reads as 0 until it reaches its new owner
+    public CompletableFuture<Double> getBalance(String address) {
+        return CompletableFuture.supplyAsync(() -> {
+            applyMigrated();
+            return balances.getOrDefault(address, 0.0);
+        }, executor);
+    }
+
+    void wake() {
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drainScheduled.set(false); // retired and shut down, nothing left to drain
+            }
+        }
+    }
+
+    // Seals one block from the queued receipts and the best pending transactions, then
+    // reschedules itself while work remains so receipts from other shards are never starved
+    private void drain() {
+        draining = true;
+        drainScheduled.set(false);
+        try {
+            // Read the migration before the ring and the finished sources before the migration
+            // inbox: a finished source has queued all of its balances, so they are applied below
+            ShardManager.Migration migration = manager.getMigration();
+            Set<Integer> finishedSources = migration != null ? migration.finishedSources() : Set.of();
+            HashRing ring = manager.getRing();
+            applyMigrated();
+
+            List<CrossShardReceipt> receipts = new ArrayList<>();
+            CrossShardReceipt queued;
+            while (receipts.size() < maxBlockTransactions && (queued = inbox.poll()) != null) {
+                if (ring.ownerOf(queued.getRecipient()) == shardId) {
+                    receipts.add(queued);
+                } else {
+                    manager.redeliver(queued);
+                }
+            }
+            List<Transaction> candidates = mempool.best(maxBlockTransactions);
+            if (receipts.isEmpty() && candidates.isEmpty()) {
+                return;
+            }
+            int deferred = sealBlock(receipts, candidates, ring, migration, finishedSources);
+            if (!inbox.isEmpty() || !migrationInbox.isEmpty() || mempool.size() > deferred) {
+                scheduleDrain();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Shard {} failed to assemble a block", shardId, e);
+        } finally {
+            draining = false;
+        }
+    }
+
+    // Returns the number of candidates held back for accounts still in transit
+    private int sealBlock(List<CrossShardReceipt> receipts, List<Transaction> candidates, HashRing ring,
+                          ShardManager.Migration migration, Set<Integer> finishedSources) {
+        for (CrossShardReceipt receipt : receipts) {
+            balances.merge(receipt.getRecipient(), receipt.getAmount(), Double::sum);
+        }
+
+        ShardBlock previous = lastBlock;
+        long height = previous != null ? previous.getHeight() + 1 : 0;
+        List<Transaction> included = new ArrayList<>(candidates.size());
+        List<Transaction> done = new ArrayList<>(candidates.size());
+        List<CrossShardReceipt> outgoing = new ArrayList<>();
+        for (Transaction tx : candidates) {
+            if (ring.ownerOf(tx.getSender()) != shardId) {
+                forwardedTransactions.increment();
+                done.add(tx);
+                manager.forward(tx);
+                continue;
+            }
+            if (migration != null && inTransit(tx.getSender(), migration, finishedSources)) {
+                continue;
+            }
+            done.add(tx);
+            if (!apply(tx, ring)) {
+                rejectedTransactions.increment();
+                continue;
+            }
+            if (ring.ownerOf(tx.getRecipient()) != shardId) {
+                outgoing.add(new CrossShardReceipt(shardId, height, included.size(), tx.getRecipient(), tx.getAmount()));
+            }
+            included.add(tx);
+        }
+        mempool.removeAll(done);
+        int deferred = candidates.size() - done.size();
+        accountCount = balances.size();
+        receiptsApplied.add(receipts.size());
+        manager.onReceiptsApplied(receipts.size());
+        if (included.isEmpty() && receipts.isEmpty()) {
+            return deferred;
+        }
+
+        ShardBlock block = new ShardBlock(shardId, height,
+                previous != null ? previous.getHash() : HashUtil.ZERO_HASH, included, receipts, outgoing.size());
+        lastBlock = block;
+        appliedTransactions.add(included.size());
+        recordRate(included.size());
+
+        // Only now is the debit final, so the credits may be released
+        for (CrossShardReceipt receipt : outgoing) {
+            manager.deliver(receipt);
+        }
+        receiptsSent.add(outgoing.size());
+        logger.debug("Shard {} sealed block {}: {} transactions, {} receipts in, {} out",
+                shardId, height, included.size(), receipts.size(), outgoing.size());
+        return deferred;
+    }
+
+    // The account moved here in the running migration and its old owner has not finished yet
+    private boolean inTransit(String address, ShardManager.Migration migration, Set<Integer> finishedSources) {
+        int previousOwner = migration.getSource().ownerOf(address);
+        return previousOwner != shardId && !finishedSources.contains(previousOwner);
+    }
+
+    // Debits the sender and, for a local recipient, credits it right away
+    private boolean apply(Transaction tx, HashRing ring) {
+        if (tx.getRecipient() == null || !(tx.getAmount() > 0) || tx.getFee() < 0) {
+            return false;
+        }
+        double cost = tx.getAmount() + tx.getFee();
+        double balance = balances.getOrDefault(tx.getSender(), 0.0);
+        if (balance < cost) {
+            return false;
+        }
+        balances.put(tx.getSender(), balance - cost);
+        if (ring.ownerOf(tx.getRecipient()) == shardId) {
+            balances.merge(tx.getRecipient(), tx.getAmount(), Double::sum);
+        }
+        return true;
+    }
+
+    private void applyMigrated() {
+        MigratedAccount account;
+        while ((account = migrationInbox.poll()) != null) {
+            balances.merge(account.address, account.balance, Double::sum);
+        }
+        accountCount = balances.size();
+    }
+
+    private void recordRate(int transactions) {
+        rateWindowCount += transactions;
+        long now = System.nanoTime();
+        if (now - rateWindowStart >= RATE_WINDOW_NANOS) {
+            transactionsPerSecond = rateWindowCount * 1e9 / (now - rateWindowStart);
+            rateMeasuredAt = now;
+            rateWindowStart = now;
+            rateWindowCount = 0;
+        }
+    }
+
+    // Hands every account the target ring assigns elsewhere to its new owner, in chunks so
+    // blocks keep being sealed in between; the accounts to move are fixed up front because
+    // nothing credits an account this shard does not own under the current ring
+    void startMigration(HashRing target) {
+        migrating = true;
+        executor.execute(() -> {
+            applyMigrated(); // balances still queued from the previous migration
+            List<String> moving = new ArrayList<>();
+            for (String address : balances.keySet()) {
+                if (target.ownerOf(address) != shardId) {
+                    moving.add(address);
+                }
+            }
+            logger.info("Shard {} migrating {} of {} accounts", shardId, moving.size(), balances.size());
+            migrateChunk(moving, 0, target);
+        });
+    }
+
+    private void migrateChunk(List<String> moving, int from, HashRing target) {
+        int to = Math.min(moving.size(), from + MIGRATION_CHUNK);
+        for (String address : moving.subList(from, to)) {
+            Double balance = balances.remove(address);
+            if (balance != null) {
+                manager.migrateAccount(target.ownerOf(address), address, balance);
+                accountsMigratedOut.increment();
+            }
+        }
+        accountCount = balances.size();
+        if (to < moving.size()) {
+            executor.execute(() -> migrateChunk(moving, to, target));
+            return;
+        }
+        migrating = false;
+        manager.onMigrationFinished(shardId);
+    }
+
+    // Called once the shard has left the ring and handed over its accounts: whatever is still
+    // queued goes to the current owners and the executor stops
+    void retire() {
+        retired = true;
+        executor.execute(() -> {
+            applyMigrated();
+            List<Transaction> pending = mempool.getTransactions();
+            for (Transaction tx : pending) {
+                manager.forward(tx);
+            }
+            mempool.removeAll(pending);
+            CrossShardReceipt receipt;
+            while ((receipt = inbox.poll()) != null) {
+                manager.redeliver(receipt);
+            }
+            if (!balances.isEmpty()) {
+                logger.warn("Shard {} retired with {} accounts left", shardId, balances.size());
+            }
+            executor.shutdown();
+            logger.info("Shard {} retired", shardId);
+        });
+    }
+
+    // No pending transactions, receipts or migrated balances and no block being assembled
+    boolean isIdle() {
+        return !draining && !migrating && !drainScheduled.get() && inbox.isEmpty()
+                && migrationInbox.isEmpty() && mempool.size() == 0;
     }
 
     public List<Transaction> getTransactions() {
-        return transactions;
+        return mempool.getTransactions();
+    }
+
+    public ShardBlock getLastBlock() {
+        return lastBlock;
+    }
+
+    public long getHeight() {
+        ShardBlock block = lastBlock;
+        return block != null ? block.getHeight() : -1;
+    }
+
+    // Rate over the last window with sealed blocks; 0 once the shard has been quiet for a while
+    public double getTransactionsPerSecond() {
+        return System.nanoTime() - rateMeasuredAt > 5 * RATE_WINDOW_NANOS ? 0 : transactionsPerSecond;
+    }
+
+    public Map<String, Object> snapshot() {
+        ShardBlock block = lastBlock;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shardId", shardId);
+        stats.put("height", getHeight());
+        stats.put("lastBlockHash", block != null ? block.getHash() : null);
+        stats.put("pendingTransactions", mempool.size());
+        stats.put("pendingReceipts", inbox.size());
+        stats.put("accounts", accountCount);
+        stats.put("transactionsPerSecond", Math.round(getTransactionsPerSecond()));
+        stats.put("routedTransactions", routedTransactions.sum());
+        stats.put("appliedTransactions", appliedTransactions.sum());
+        stats.put("rejectedTransactions", rejectedTransactions.sum());
+        stats.put("forwardedTransactions", forwardedTransactions.sum());
+        stats.put("receiptsSent", receiptsSent.sum());
+        stats.put("receiptsApplied", receiptsApplied.sum());
+        stats.put("accountsMigratedIn", accountsMigratedIn.sum());
+        stats.put("accountsMigratedOut", accountsMigratedOut.sum());
+        stats.put("migrating", migrating);
+        return stats;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
     public String toString() {
-        return "Shard{id=" + shardId + ", txCount=" + transactions.size() + "}";
+        return "Shard{id=" + shardId + ", height=" + getHeight() + ", pending=" + mempool.size() + "}";
+    }
+
+    private static final class MigratedAccount {
+        private final String address;
+        private final double balance;
+
+        private MigratedAccount(String address, double balance) {
+            this.address = address;
+            this.balance = balance;
+        }
     }
 }
@@ -0,0 +1,57 @@
+package com.jestogp9te.sharding;
+
+import com.jestogp9te.blockchain.MerkleTree;
+import com.jestogp9te.blockchain.Transaction;
+import com.jestogp9te.util.HashUtil;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+// Block of a single shard's chain: the transactions its accounts sent and the cross-shard
+// receipts it credited. Shard blocks are not mined; the hash only chains them together.
+public class ShardBlock {
+    private final int shardId;
+    private final long height;
+    private final long timestamp;
+    private final String previousHash;
+    private final String merkleRoot;
+    private final List<Transaction> transactions;
+    private final List<CrossShardReceipt> receipts;
+    private final int outgoingReceipts;
+    private final String hash;
+
+    public ShardBlock(int shardId, long height, String previousHash, List<Transaction> transactions,
+                      List<CrossShardReceipt> receipts, int outgoingReceipts) {
+        this.shardId = shardId;
+        this.height = height;
+        this.timestamp = System.currentTimeMillis();
+        this.previousHash = previousHash;
+        this.merkleRoot = MerkleTree.getMerkleRoot(transactions);
+        this.transactions = List.copyOf(transactions);
+        this.receipts = List.copyOf(receipts);
+        this.outgoingReceipts = outgoingReceipts;
+        this.hash = calculateHash();
+    }
+
+    private String calculateHash() {
+        MessageDigest digest = HashUtil.newSha256();
+        String header = shardId + ":" + height + ":" + timestamp + ":" + previousHash + ":" + merkleRoot;
+        digest.update(header.getBytes(StandardCharsets.UTF_8));
+        for (CrossShardReceipt receipt : receipts) {
+            digest.update((receipt.getId() + ":" + receipt.getRecipient() + ":" + receipt.getAmount())
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return HashUtil.toHex(digest.digest());
+    }
+
+    // Getters
+    public int getShardId() { return shardId; }
+    public long getHeight() { return height; }
+    public long getTimestamp() { return timestamp; }
+    public String getPreviousHash() { return previousHash; }
+    public String getMerkleRoot() { return merkleRoot; }
+    public List<Transaction> getTransactions() { return transactions; }
+    public List<CrossShardReceipt> getReceipts() { return receipts; }
+    public int getOutgoingReceipts() { return outgoingReceipts; }
+    public String getHash() { return hash; }
+}
@@ -1,26 +1,310 @@
 package com.jestogp9te.sharding;
 
+import com.jestogp9te.blockchain.Mempool;
+import com.jestogp9te.blockchain.SignatureVerifier;
 import com.jestogp9te.blockchain.Transaction;
-import java.util.HashMap;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 
+// Owns the shards and routes work to them over a consistent-hash ring. Signatures are checked
+// on the caller's thread before a transaction is handed to its sender's shard; cross-shard
+// receipts and migrated balances are passed between shards through here.
+//
+// Shards can be added or removed at runtime. The new ring takes effect immediately, and every
+// shard of the old ring then hands the accounts it lost to their new owners on its own
+// executor, in between sealing blocks. Balances only ever move as additive credits, so a
+// transfer, receipt or migration racing with the ring change lands on the right account.
+@Component
 public class ShardManager {
-    private final Map<Integer, Shard> shardMap = new HashMap<>();
-    private final int totalShards;
 
-    public ShardManager(int totalShards) {
-        this.totalShards = totalShards;
+    private static final Logger logger = LoggerFactory.getLogger(ShardManager.class);
+
+    private static final int DEFAULT_BLOCK_TRANSACTIONS = 1000;
+    private static final long DEFAULT_MEMPOOL_BYTES = 16L * 1024 * 1024;
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final Map<Integer, Shard> shardMap = new ConcurrentHashMap<>();
+    private final SignatureVerifier verifier;
+    private final int maxBlockTransactions;
+    private final long mempoolBytes;
+    private final AtomicLong receiptsInFlight = new AtomicLong();
+    private volatile HashRing ring;
+    private volatile Migration migration;
+
+    @Autowired
+    public ShardManager(SignatureVerifier verifier,
+                        @Value("${sharding.total.shards:4}") int totalShards,
+                        @Value("${sharding.virtual.nodes:128}") int virtualNodes,
+                        @Value("${sharding.block.max.transactions:1000}") int maxBlockTransactions,
+                        @Value("${sharding.mempool.max.bytes:16777216}") long mempoolBytes) {
+        if (totalShards < 1) {
+            throw new IllegalArgumentException("sharding.total.shards must be at least 1");
+        }
+        this.verifier = verifier;
+        this.maxBlockTransactions = maxBlockTransactions;
+        this.mempoolBytes = mempoolBytes;
         for (int i = 0; i < totalShards; i++) {
-            shardMap.put(i, new Shard(i));
+            shardMap.put(i, new Shard(i, this, maxBlockTransactions, mempoolBytes));
+        }
+        this.ring = new HashRing(IntStream.range(0, totalShards).boxed().toList(), virtualNodes);
+        logger.info("Started {} shards with {} virtual nodes each", totalShards, virtualNodes);
+    }
+
+    // Standalone use, e.g. benchmarks: no signature verification
+    public ShardManager(int totalShards) {
+        this(null, totalShards, DEFAULT_VIRTUAL_NODES, DEFAULT_BLOCK_TRANSACTIONS, DEFAULT_MEMPOOL_BYTES);
+    }
+
+    public int shardFor(String address) {
+        return ring.ownerOf(address);
+    }
+
+    public Mempool.AdmissionResult routeTransaction(Transaction tx) {
+        if (tx.getSender() == null) {
+            throw new IllegalArgumentException("Transaction has no sender");
+        }
+        if (verifier != null && !verifier.verify(tx)) {
+            return Mempool.AdmissionResult.INVALID_SIGNATURE;
+        }
+        return forward(tx);
+    }
+
+    // Hands an already verified transaction to the current owner of its sender
+    Mempool.AdmissionResult forward(Transaction tx) {
+        return ownerOf(tx.getSender()).addTransaction(tx);
+    }
+
+    public void fund(String address, double amount) {
+        ownerOf(address).credit(address, amount).join();
+    }
+
+    public double getBalance(String address) {
+        return ownerOf(address).getBalance(address).join();
+    }
+
+    // A shard removed from the map has left the ring, so a fresh lookup finds the new owner
+    private Shard ownerOf(String address) {
+        while (true) {
+            Shard shard = shardMap.get(ring.ownerOf(address));
+            if (shard != null) {
+                return shard;
+            }
+        }
+    }
+
+    void deliver(CrossShardReceipt receipt) {
+        receiptsInFlight.incrementAndGet();
+        redeliver(receipt);
+    }
+
+    // A receipt that reached a shard which no longer owns the recipient
+    void redeliver(CrossShardReceipt receipt) {
+        ownerOf(receipt.getRecipient()).deliver(receipt);
+    }
+
+    void onReceiptsApplied(int count) {
+        if (count > 0) {
+            receiptsInFlight.addAndGet(-count);
+        }
+    }
+
+    void migrateAccount(int targetShard, String address, double balance) {
+        Shard target = shardMap.get(targetShard);
+        if (target == null) {
+            target = ownerOf(address);
+        }
+        target.acceptMigrated(address, balance);
+    }
+
+    // Adds a shard and starts moving its key ranges over; returns the new shard's id
+    public synchronized int addShard() {
+        requireNoMigration();
+        int shardId = ring.getShardIds().last() + 1;
+        shardMap.put(shardId, new Shard(shardId, this, maxBlockTransactions, mempoolBytes));
+        startMigration(ring.withShard(shardId), null);
+        return shardId;
+    }
+
+    // Takes the shard out of the ring; it is retired once its accounts have moved
+    public synchronized void removeShard(int shardId) {
+        requireNoMigration();
+        if (!ring.getShardIds().contains(shardId)) {
+            throw new IllegalArgumentException("Unknown shard " + shardId);
+        }
+        if (ring.size() == 1) {
+            throw new IllegalStateException("Cannot remove the last shard");
+        }
+        startMigration(ring.withoutShard(shardId), shardId);
+    }
+
+    private void requireNoMigration() {
+        if (migration != null) {
+            throw new IllegalStateException("A resharding is already in progress");
         }
     }
 
-    public void routeTransaction(Transaction tx) {
-        int shardId = Math.abs(tx.getSender().hashCode()) % totalShards;
-        shardMap.get(shardId).addTransaction(tx);
+    // Publish the migration before the ring, so a shard that sees the new ring also sees
+    // which accounts are still in transit
+    private void startMigration(HashRing target, Integer removedShard) {
+        HashRing source = ring;
+        Migration started = new Migration(source, target, removedShard);
+        migration = started;
+        ring = target;
+        logger.info("Resharding from {} to {} shards", source.size(), target.size());
+        for (int shardId : source.getShardIds()) {
+            shardMap.get(shardId).startMigration(target);
+        }
+    }
+
+    void onMigrationFinished(int shardId) {
+        Migration current = migration;
+        if (current == null || !current.finish(shardId)) {
+            return;
+        }
+        synchronized (this) {
+            migration = null;
+        }
+        if (current.removedShard != null) {
+            shardMap.remove(current.removedShard).retire();
+        }
+        // Release transactions that were held back for accounts in transit
+        for (Shard shard : shardMap.values()) {
+            shard.wake();
+        }
+        logger.info("Resharding to {} shards finished in {} ms", current.target.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.startedAt));
+    }
+
+    Migration getMigration() {
+        return migration;
+    }
+
+    HashRing getRing() {
+        return ring;
+    }
+
+    // Waits until every shard has sealed its pending work, all receipts are credited and no
+    // resharding is running
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isIdle()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private boolean isIdle() {
+        if (migration != null || receiptsInFlight.get() > 0) {
+            return false;
+        }
+        for (Shard shard : shardMap.values()) {
+            if (!shard.isIdle()) {
+                return false;
+            }
+        }
+        return migration == null && receiptsInFlight.get() == 0;
     }
 
     public Map<Integer, Shard> getShards() {
-        return shardMap;
+        return Collections.unmodifiableMap(shardMap);
+    }
+
+    public Shard getShard(int shardId) {
+        return shardMap.get(shardId);
+    }
+
+    public int getTotalShards() {
+        return ring.size();
+    }
+
+    // Per-shard load next to the share of the hash space each shard owns: a shard whose share
+    // of the traffic is well above its share of the ring is hot, and adding a shard takes about
+    // 1/N of every existing shard's accounts
+    public Map<String, Object> snapshot() {
+        HashRing current = ring;
+        double totalRate = 0;
+        for (Shard shard : shardMap.values()) {
+            totalRate += shard.getTransactionsPerSecond();
+        }
+        List<Map<String, Object>> shards = new ArrayList<>();
+        for (Shard shard : new TreeMap<>(shardMap).values()) {
+            Map<String, Object> stats = shard.snapshot();
+            stats.put("ringShare", current.share(shard.getShardId()));
+            stats.put("loadShare", totalRate > 0 ? shard.getTransactionsPerSecond() / totalRate : 0.0);
+            shards.add(stats);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalShards", current.size());
+        stats.put("receiptsInFlight", receiptsInFlight.get());
+        stats.put("migration", getMigrationStatus());
+        stats.put("shards", shards);
+        return stats;
+    }
+
+    public Map<String, Object> getMigrationStatus() {
+        Migration current = migration;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("inProgress", current != null);
+        if (current != null) {
+            status.put("fromShards", current.source.getShardIds());
+            status.put("toShards", current.target.getShardIds());
+            status.put("finishedSources", current.finishedSources());
+            status.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.startedAt));
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shardMap.values()) {
+            shard.shutdown();
+        }
+    }
+
+    // One ring change: every shard of the source ring reports once it has queued all of the
+    // balances it lost to their new owners
+    static final class Migration {
+        private final HashRing source;
+        private final HashRing target;
+        private final Integer removedShard;
+        private final Set<Integer> finished = ConcurrentHashMap.newKeySet();
+        private final long startedAt = System.nanoTime();
+
+        private Migration(HashRing source, HashRing target, Integer removedShard) {
+            this.source = source;
+            this.target = target;
+            this.removedShard = removedShard;
+        }
+
+        HashRing getSource() {
+            return source;
+        }
+
+        Set<Integer> finishedSources() {
+            return Set.copyOf(finished);
+        }
+
+        // True for the call that completes the migration
+        private synchronized boolean finish(int shardId) {
+            return finished.add(shardId) && finished.size() == source.size();
+        }
     }
 }
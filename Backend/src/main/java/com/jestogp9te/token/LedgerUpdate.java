@@ -0,0 +1,50 @@
+package com.jestogp9te.token;
+
+import java.math.BigInteger;
+
+// New value of one ledger entry after a mutation. The write-ahead log and snapshots store
+// values rather than operations, so replaying an entry twice is harmless.
+public class LedgerUpdate {
+
+    public enum Kind { BALANCE, ALLOWANCE, SUPPLY }
+
+    private final Kind kind;
+    private final String key;
+    private final long value;
+    private final BigInteger bigValue;
+
+    // bigValue is null when the amount fits in value
+    public LedgerUpdate(Kind kind, String key, long value, BigInteger bigValue) {
+        this.kind = kind;
+        this.key = key;
+        this.value = value;
+        this.bigValue = bigValue;
+    }
+
+    // Same range as a balance table slot, so whatever fits the table is logged as a long
+    public static LedgerUpdate of(Kind kind, String key, BigInteger amount) {
+        return LongBalanceTable.fitsLong(amount)
+                ? new LedgerUpdate(kind, key, amount.longValue(), null)
+                : new LedgerUpdate(kind, key, 0, amount);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public BigInteger getBigValue() {
+        return bigValue;
+    }
+
+    public BigInteger getAmount() {
+        return bigValue != null ? bigValue : BigInteger.valueOf(value);
+    }
+}
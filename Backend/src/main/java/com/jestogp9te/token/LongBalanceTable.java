@@ -0,0 +1,205 @@
+package com.jestogp9te.token;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Open-addressing table from account key to an unsigned amount held in a primitive long slot.
+// Amounts that do not fit in 63 bits live in a small BigInteger side map and their slot holds
+// the OVERFLOW marker instead.
+//
+// The table only protects its own structure: lookups and slot updates run under the read lock,
+// while inserting a new key or growing the table takes the write lock. Two writers of the same
+// key must be serialized by the caller (TokenContract holds the account's stripe lock).
+class LongBalanceTable {
+
+    static final long OVERFLOW = -1L;
+
+    // Non-negative amounts of up to 63 bits fit a slot; OVERFLOW is the only negative value
+    static boolean fitsLong(BigInteger amount) {
+        return amount.signum() >= 0 && amount.bitLength() < Long.SIZE;
+    }
+
+    interface Visitor {
+        void visit(String key, long value, BigInteger bigValue);
+    }
+
+    private static final int INITIAL_CAPACITY = 1024; // power of two
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, BigInteger> overflow = new ConcurrentHashMap<>();
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private AtomicLongArray values = new AtomicLongArray(INITIAL_CAPACITY);
+    private int size;
+
+    // Amount for the key, OVERFLOW when it only fits in a BigInteger, 0 for unknown keys
+    long getLong(String key) {
+        lock.readLock().lock();
+        try {
+            int slot = find(key);
+            return slot >= 0 ? values.get(slot) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    BigInteger get(String key) {
+        while (true) {
+            long value = getLong(key);
+            if (value != OVERFLOW) {
+                return BigInteger.valueOf(value);
+            }
+            // Null only if the value shrank back into its slot between the two reads
+            BigInteger big = overflow.get(key);
+            if (big != null) {
+                return big;
+            }
+        }
+    }
+
+    // value must be non-negative
+    void setLong(String key, long value) {
+        lock.readLock().lock();
+        try {
+            int slot = find(key);
+            if (slot >= 0) {
+                if (values.getAndSet(slot, value) == OVERFLOW) {
+                    overflow.remove(key);
+                }
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        insert(key, value);
+    }
+
+    void set(String key, BigInteger value) {
+        if (fitsLong(value)) {
+            setLong(key, value.longValue());
+            return;
+        }
+        // Publish the big value before the marker so readers never see OVERFLOW without it
+        overflow.put(key, value);
+        lock.readLock().lock();
+        try {
+            int slot = find(key);
+            if (slot >= 0) {
+                values.set(slot, OVERFLOW);
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        insert(key, OVERFLOW);
+    }
+
+    // Adds on the long path and promotes to BigInteger when the sum leaves 63 bits
+    void add(String key, long amount) {
+        long current = getLong(key);
+        if (current != OVERFLOW) {
+            long sum = current + amount;
+            if (sum >= 0) {
+                setLong(key, sum);
+                return;
+            }
+        }
+        set(key, get(key).add(BigInteger.valueOf(amount)));
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // bigValue is non-null only for entries held in the overflow map
+    void forEach(Visitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < keys.length; slot++) {
+                String key = keys[slot];
+                if (key != null) {
+                    long value = values.get(slot);
+                    visitor.visit(key, value, value == OVERFLOW ? overflow.get(key) : null);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int overflowCount() {
+        return overflow.size();
+    }
+
+    private void insert(String key, long value) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(key);
+            if (slot >= 0) {
+                if (values.getAndSet(slot, value) == OVERFLOW && value != OVERFLOW) {
+                    overflow.remove(key);
+                }
+                return;
+            }
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                resize();
+            }
+            slot = probe(keys, key);
+            keys[slot] = key;
+            values.set(slot, value);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void resize() {
+        String[] newKeys = new String[keys.length * 2];
+        AtomicLongArray newValues = new AtomicLongArray(newKeys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int slot = probe(newKeys, keys[i]);
+                newKeys[slot] = keys[i];
+                newValues.set(slot, values.get(i));
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private int find(String key) {
+        int mask = keys.length - 1;
+        for (int slot = spread(key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            String existing = keys[slot];
+            if (existing == null) {
+                return -1;
+            }
+            if (existing.equals(key)) {
+                return slot;
+            }
+        }
+    }
+
+    // First free slot for the key in a table that does not contain it yet
+    private static int probe(String[] table, String key) {
+        int mask = table.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,36 @@
+package com.jestogp9te.token;
+
+import com.jestogp9te.persistence.LevelDBManager;
+import com.jestogp9te.persistence.TokenStore;
+import java.math.BigInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TokenConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public TokenStore tokenStore(@Qualifier("tokenDatabase") LevelDBManager db, TokenPersistenceProperties properties) {
+        return new TokenStore(db, properties.isSyncWrites());
+    }
+
+    // The configured total supply is minted to the owner once, when the ledger is first created
+    @Bean(destroyMethod = "close")
+    public TokenContract tokenContract(TokenContractProperties properties, TokenStore store,
+                                       TokenPersistenceProperties persistence) {
+        TokenContract contract = new TokenContract(properties.getName(), properties.getSymbol(),
+                store, persistence.getSnapshotInterval());
+        boolean restored = contract.recover();
+        BigInteger initialSupply = properties.getTotalSupply();
+        if (!restored && initialSupply != null && initialSupply.signum() > 0) {
+            contract.mint(properties.getOwner(), initialSupply);
+            logger.info("Created token ledger with {} {} held by {}", initialSupply, contract.getSymbol(), properties.getOwner());
+        }
+        return contract;
+    }
+}
@@ -1,29 +1,96 @@
 package com.jestogp9te.token;
 
+import com.jestogp9te.persistence.StorageException;
+import com.jestogp9te.persistence.TokenStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
-
-public class TokenContract {
+// Balances are guarded by striped locks keyed on the account. An operation takes the stripes of
+// every account it writes in ascending stripe order, so transfers between unrelated accounts run
+// in parallel and two transfers can never wait on each other in a cycle. An owner's allowances
+// are guarded by the owner's stripe.
+//
+// Balances and allowances are kept as primitive longs in LongBalanceTable; amounts below 2^63
+// never allocate on the transfer path, larger ones transparently fall back to BigInteger.
+//
+// With a TokenStore every mutation appends the new values it produced to the write-ahead log
+// while still holding its locks, then waits for the group commit after releasing them. The
+// supply has its own lock, always taken after any stripes.
+public class TokenContract implements AutoCloseable, MeterBinder {
     private static final Logger logger = LoggerFactory.getLogger(TokenContract.class);
 
     private static final String NAME = "JestoToken";
     private static final String SYMBOL = "JST";
     private static final int DECIMALS = 18;
 
-    private BigInteger totalSupply = BigInteger.ZERO;
-    private final Map<String, BigInteger> balances = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, BigInteger>> allowances = new ConcurrentHashMap<>();
+    private static final int STRIPES = 1024; // power of two
+
+    private final String name;
+    private final String symbol;
+    private final AtomicReference<BigInteger> totalSupply = new AtomicReference<>(BigInteger.ZERO);
+    private final ReentrantLock supplyLock = new ReentrantLock();
+    private final LongBalanceTable balances = new LongBalanceTable();
+    // Keyed by owner and spender joined with a NUL character
+    private final LongBalanceTable allowances = new LongBalanceTable();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final TokenStore store;
+    private final long snapshotInterval;
+    private final ExecutorService snapshotExecutor;
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+
+    // Counted with adders so the transfer path stays cheap; Micrometer reads them on scrape
+    private final LongAdder appliedTransfers = new LongAdder();
+    private final LongAdder rejectedTransfers = new LongAdder();
+    private final LongAdder contendedLocks = new LongAdder();
+    private volatile Timer lockWaitTimer;
+
+    // In-memory ledger
+    public TokenContract() {
+        this(NAME, SYMBOL, null, 0);
+    }
+
+    // Durable ledger; call recover() before use. A snapshot is taken every snapshotInterval WAL entries.
+    public TokenContract(String name, String symbol, TokenStore store, long snapshotInterval) {
+        this.name = name != null ? name : NAME;
+        this.symbol = symbol != null ? symbol : SYMBOL;
+        this.store = store;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotExecutor = store != null ? Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "token-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
 
     public String getName() {
-        return NAME;
+        return name;
     }
 
     public String getSymbol() {
-        return SYMBOL;
+        return symbol;
     }
 
     public int getDecimals() {
@@ -31,21 +98,36 @@ public class TokenContract {
     }
 
     public BigInteger getTotalSupply() {
-        return totalSupply;
+        return totalSupply.get();
     }
 
     public BigInteger balanceOf(String address) {
-        return balances.getOrDefault(address, BigInteger.ZERO);
+        return balances.get(address);
     }
 
     public void mint(String to, BigInteger amount) {
         validateAddress(to);
         validateAmount(amount);
 
-        totalSupply = totalSupply.add(amount);
-        balances.put(to, balanceOf(to).add(amount));
+        ReentrantLock lock = lockFor(to);
+        CompletableFuture<Void> pending = null;
+        BigInteger supply;
+        acquire(lock);
+        supplyLock.lock();
+        try {
+            credit(balances, to, amount);
+            supply = totalSupply.accumulateAndGet(amount, BigInteger::add);
+            if (store != null) {
+                pending = store.append(List.of(balanceUpdate(to),
+                        LedgerUpdate.of(LedgerUpdate.Kind.SUPPLY, "", supply)));
+            }
+        } finally {
+            supplyLock.unlock();
+            lock.unlock();
+        }
+        awaitDurable(pending);
 
-        logger.info("Minted {} tokens to {}. Total supply is now {}", amount, to, totalSupply);
+        logger.info("Minted {} tokens to {}. Total supply is now {}", amount, to, supply);
     }
 
     public void transfer(String from, String to, BigInteger amount) {
@@ -53,15 +135,102 @@ public class TokenContract {
         validateAddress(to);
         validateAmount(amount);
 
-        BigInteger senderBalance = balanceOf(from);
-        if (senderBalance.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance");
+        CompletableFuture<Void> pending = null;
+        lockPair(from, to);
+        try {
+            move(from, to, amount);
+            if (store != null) {
+                pending = store.append(List.of(balanceUpdate(from), balanceUpdate(to)));
+            }
+        } finally {
+            unlockPair(from, to);
+        }
+        awaitDurable(pending);
+        appliedTransfers.increment();
+
+        logger.debug("Transferred {} tokens from {} to {}", amount, from, to);
+    }
+
+    // Applies every transfer or none. Entries are checked in order against a private copy of the
+    // touched balances, so a later entry may spend what an earlier one received; the ledger is
+    // then written once per account with the net result, under all involved stripes.
+    public TransferBatchResult transferBatch(List<TokenTransfer> transfers) {
+        List<TransferBatchResult.Status> results = new ArrayList<>(transfers.size());
+        boolean[] stripes = new boolean[STRIPES];
+        boolean valid = true;
+        for (TokenTransfer transfer : transfers) {
+            TransferBatchResult.Status status = validate(transfer);
+            results.add(status);
+            if (status == TransferBatchResult.Status.OK) {
+                stripes[stripe(transfer.getFrom())] = true;
+                stripes[stripe(transfer.getTo())] = true;
+            } else {
+                valid = false;
+            }
+        }
+        if (!valid) {
+            rejectedTransfers.add(transfers.size());
+            return rejected(results);
+        }
+
+        CompletableFuture<Void> pending = null;
+        lockStripes(stripes);
+        try {
+            Map<String, NetBalance> net = new HashMap<>();
+            for (int i = 0; i < transfers.size(); i++) {
+                TokenTransfer transfer = transfers.get(i);
+                NetBalance sender = net.computeIfAbsent(transfer.getFrom(), this::loadNetBalance);
+                if (!sender.covers(transfer.getAmount())) {
+                    results.set(i, TransferBatchResult.Status.INSUFFICIENT_BALANCE);
+                    valid = false;
+                    continue;
+                }
+                sender.subtract(transfer.getAmount());
+                net.computeIfAbsent(transfer.getTo(), this::loadNetBalance).add(transfer.getAmount());
+            }
+            if (!valid) {
+                rejectedTransfers.add(transfers.size());
+                return rejected(results);
+            }
+            List<LedgerUpdate> updates = new ArrayList<>(net.size());
+            for (Map.Entry<String, NetBalance> entry : net.entrySet()) {
+                entry.getValue().store(balances, entry.getKey());
+                if (store != null) {
+                    updates.add(balanceUpdate(entry.getKey()));
+                }
+            }
+            if (store != null) {
+                pending = store.append(updates);
+            }
+        } finally {
+            unlockStripes(stripes);
         }
+        awaitDurable(pending);
+        appliedTransfers.add(transfers.size());
+
+        logger.debug("Applied batch of {} transfers", transfers.size());
+        return new TransferBatchResult(true, results);
+    }
+
+    private TransferBatchResult.Status validate(TokenTransfer transfer) {
+        if (transfer == null || isBlank(transfer.getFrom()) || isBlank(transfer.getTo())) {
+            return TransferBatchResult.Status.INVALID_ADDRESS;
+        }
+        if (transfer.getAmount() == null || transfer.getAmount().signum() <= 0) {
+            return TransferBatchResult.Status.INVALID_AMOUNT;
+        }
+        return TransferBatchResult.Status.OK;
+    }
 
-        balances.put(from, senderBalance.subtract(amount));
-        balances.put(to, balanceOf(to).add(amount));
+    private static TransferBatchResult rejected(List<TransferBatchResult.Status> results) {
+        results.replaceAll(status -> status == TransferBatchResult.Status.OK
+                ? TransferBatchResult.Status.NOT_APPLIED : status);
+        return new TransferBatchResult(false, results);
+    }
 
-        logger.info("Transferred {} tokens from {} to {}", amount, from, to);
+    private NetBalance loadNetBalance(String address) {
+        long value = balances.getLong(address);
+        return value != LongBalanceTable.OVERFLOW ? new NetBalance(value) : new NetBalance(balances.get(address));
     }
 
     public void approve(String owner, String spender, BigInteger amount) {
@@ -69,13 +238,25 @@ public class TokenContract {
         validateAddress(spender);
         validateAmount(amount);
 
-        allowances.computeIfAbsent(owner, k -> new ConcurrentHashMap<>()).put(spender, amount);
+        ReentrantLock lock = lockFor(owner);
+        CompletableFuture<Void> pending = null;
+        lock.lock();
+        try {
+            String key = allowanceKey(owner, spender);
+            allowances.set(key, amount);
+            if (store != null) {
+                pending = store.append(List.of(LedgerUpdate.of(LedgerUpdate.Kind.ALLOWANCE, key, amount)));
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(pending);
 
         logger.info("{} approved {} to spend {} tokens", owner, spender, amount);
     }
 
     public BigInteger allowance(String owner, String spender) {
-        return allowances.getOrDefault(owner, Map.of()).getOrDefault(spender, BigInteger.ZERO);
+        return allowances.get(allowanceKey(owner, spender));
     }
 
     public void transferFrom(String spender, String from, String to, BigInteger amount) {
@@ -84,26 +265,293 @@ public class TokenContract {
         validateAddress(to);
         validateAmount(amount);
 
-        BigInteger allowed = allowance(from, spender);
-        if (allowed.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Allowance exceeded");
+        CompletableFuture<Void> pending = null;
+        lockPair(from, to);
+        try {
+            String allowanceKey = allowanceKey(from, spender);
+            if (!covers(allowances, allowanceKey, amount)) {
+                rejectedTransfers.increment();
+                throw new IllegalArgumentException("Allowance exceeded");
+            }
+            move(from, to, amount);
+            debit(allowances, allowanceKey, amount);
+            if (store != null) {
+                pending = store.append(List.of(balanceUpdate(from), balanceUpdate(to),
+                        LedgerUpdate.of(LedgerUpdate.Kind.ALLOWANCE, allowanceKey, allowances.get(allowanceKey))));
+            }
+        } finally {
+            unlockPair(from, to);
+        }
+        awaitDurable(pending);
+        appliedTransfers.increment();
+
+        logger.debug("{} transferred {} tokens from {} to {}", spender, amount, from, to);
+    }
+
+    // Rebuild the ledger from the store's snapshot and WAL; false when the store was empty
+    public boolean recover() {
+        if (store == null) {
+            return false;
+        }
+        return store.recover(update -> {
+            switch (update.getKind()) {
+                case BALANCE -> restore(balances, update);
+                case ALLOWANCE -> restore(allowances, update);
+                case SUPPLY -> totalSupply.set(update.getAmount());
+            }
+        });
+    }
+
+    private static void restore(LongBalanceTable table, LedgerUpdate update) {
+        if (update.getBigValue() != null) {
+            table.set(update.getKey(), update.getBigValue());
+        } else {
+            table.setLong(update.getKey(), update.getValue());
+        }
+    }
+
+    // Captures a consistent copy of the ledger with every stripe and the supply locked, then
+    // writes it and drops the WAL entries it covers. Mutations pause only for the copy.
+    public void snapshot() {
+        if (store == null) {
+            return;
+        }
+        long coveredSequence;
+        List<LedgerUpdate> state = new ArrayList<>(balances.size() + allowances.size() + 1);
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        supplyLock.lock();
+        try {
+            coveredSequence = store.getLastSequence();
+            balances.forEach((key, value, big) -> state.add(new LedgerUpdate(LedgerUpdate.Kind.BALANCE, key, value, big)));
+            allowances.forEach((key, value, big) -> state.add(new LedgerUpdate(LedgerUpdate.Kind.ALLOWANCE, key, value, big)));
+            state.add(LedgerUpdate.of(LedgerUpdate.Kind.SUPPLY, "", totalSupply.get()));
+        } finally {
+            supplyLock.unlock();
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+        store.writeSnapshot(coveredSequence, state);
+    }
+
+    private LedgerUpdate balanceUpdate(String address) {
+        long value = balances.getLong(address);
+        return value != LongBalanceTable.OVERFLOW
+                ? new LedgerUpdate(LedgerUpdate.Kind.BALANCE, address, value, null)
+                : new LedgerUpdate(LedgerUpdate.Kind.BALANCE, address, 0, balances.get(address));
+    }
+
+    private void awaitDurable(CompletableFuture<Void> pending) {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            throw new StorageException("Token ledger update was applied but could not be logged", e.getCause());
+        }
+        if (store.getEntriesSinceSnapshot() >= snapshotInterval && snapshotRunning.compareAndSet(false, true)) {
+            snapshotExecutor.execute(() -> {
+                try {
+                    snapshot();
+                } catch (RuntimeException e) {
+                    logger.error("Token snapshot failed", e);
+                } finally {
+                    snapshotRunning.set(false);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("token.transfers", appliedTransfers, LongAdder::sum)
+                .description("Token transfers by outcome")
+                .tag("outcome", "applied")
+                .register(registry);
+        FunctionCounter.builder("token.transfers", rejectedTransfers, LongAdder::sum)
+                .description("Token transfers by outcome")
+                .tag("outcome", "rejected")
+                .register(registry);
+        FunctionCounter.builder("token.lock.contended", contendedLocks, LongAdder::sum)
+                .description("Stripe lock acquisitions that had to wait")
+                .register(registry);
+        lockWaitTimer = Timer.builder("token.lock.wait")
+                .description("Time spent waiting for a contended stripe lock")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("token.accounts", balances, LongBalanceTable::size)
+                .description("Accounts with a balance entry")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+            try {
+                snapshotExecutor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
+    }
 
-        BigInteger fromBalance = balanceOf(from);
-        if (fromBalance.compareTo(amount) < 0) {
+    // Caller holds the stripes of both accounts
+    private void move(String from, String to, BigInteger amount) {
+        if (!covers(balances, from, amount)) {
+            rejectedTransfers.increment();
             throw new IllegalArgumentException("Insufficient balance");
         }
+        debit(balances, from, amount);
+        credit(balances, to, amount);
+    }
+
+    private static boolean covers(LongBalanceTable table, String key, BigInteger amount) {
+        long current = table.getLong(key);
+        if (current != LongBalanceTable.OVERFLOW) {
+            // A long balance never covers an amount that needs a BigInteger
+            return LongBalanceTable.fitsLong(amount) && current >= amount.longValue();
+        }
+        return table.get(key).compareTo(amount) >= 0;
+    }
+
+    // Caller has checked covers(); the new value is never negative
+    private static void debit(LongBalanceTable table, String key, BigInteger amount) {
+        long current = table.getLong(key);
+        if (current != LongBalanceTable.OVERFLOW) {
+            table.setLong(key, current - amount.longValue());
+        } else {
+            table.set(key, table.get(key).subtract(amount));
+        }
+    }
+
+    private static void credit(LongBalanceTable table, String key, BigInteger amount) {
+        if (LongBalanceTable.fitsLong(amount)) {
+            table.add(key, amount.longValue());
+        } else {
+            table.set(key, table.get(key).add(amount));
+        }
+    }
+
+    private static String allowanceKey(String owner, String spender) {
+        return owner + '\u0000' + spender;
+    }
+
+    private static int stripe(String address) {
+        int h = address.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private ReentrantLock lockFor(String address) {
+        return locks[stripe(address)];
+    }
+
+    // Uncontended acquisitions cost one tryLock; only a thread that has to wait reads the clock
+    private void acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        contendedLocks.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        Timer timer = lockWaitTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void lockStripes(boolean[] stripes) {
+        for (int i = 0; i < STRIPES; i++) {
+            if (stripes[i]) {
+                acquire(locks[i]);
+            }
+        }
+    }
+
+    private void unlockStripes(boolean[] stripes) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            if (stripes[i]) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    private void lockPair(String a, String b) {
+        int first = stripe(a);
+        int second = stripe(b);
+        acquire(locks[Math.min(first, second)]);
+        if (first != second) {
+            acquire(locks[Math.max(first, second)]);
+        }
+    }
+
+    private void unlockPair(String a, String b) {
+        int first = stripe(a);
+        int second = stripe(b);
+        if (first != second) {
+            locks[Math.max(first, second)].unlock();
+        }
+        locks[Math.min(first, second)].unlock();
+    }
+
+    // Working balance of one account during a batch; stays a long until it leaves 63 bits
+    private static final class NetBalance {
+        private long value;
+        private BigInteger big;
+
+        private NetBalance(long value) {
+            this.value = value;
+        }
+
+        private NetBalance(BigInteger big) {
+            this.big = big;
+        }
+
+        private boolean covers(BigInteger amount) {
+            if (big == null) {
+                return LongBalanceTable.fitsLong(amount) && value >= amount.longValue();
+            }
+            return big.compareTo(amount) >= 0;
+        }
 
-        allowances.get(from).put(spender, allowed.subtract(amount));
-        balances.put(from, fromBalance.subtract(amount));
-        balances.put(to, balanceOf(to).add(amount));
+        private void subtract(BigInteger amount) {
+            if (big == null) {
+                value -= amount.longValue();
+            } else {
+                big = big.subtract(amount);
+            }
+        }
+
+        private void add(BigInteger amount) {
+            if (big == null && LongBalanceTable.fitsLong(amount)) {
+                long sum = value + amount.longValue();
+                if (sum >= 0) {
+                    value = sum;
+                    return;
+                }
+            }
+            big = (big != null ? big : BigInteger.valueOf(value)).add(amount);
+        }
 
-        logger.info("{} transferred {} tokens from {} to {}", spender, amount, from, to);
+        private void store(LongBalanceTable table, String key) {
+            if (big == null) {
+                table.setLong(key, value);
+            } else {
+                table.set(key, big);
+            }
+        }
     }
 
     // Helper validation methods
+    private static boolean isBlank(String address) {
+        return address == null || address.trim().isEmpty();
+    }
+
     private void validateAddress(String address) {
-        if (address == null || address.trim().isEmpty()) {
+        if (isBlank(address)) {
             throw new IllegalArgumentException("Address must not be null or empty");
         }
     }
@@ -12,6 +12,8 @@ public class TokenContractProperties {
     private String name;
     private String symbol;
     private BigInteger totalSupply;
+    // Account that receives the initial supply when the ledger is created
+    private String owner = "treasury";
 
     // Getters and Setters
     public String getName() {
@@ -37,4 +39,12 @@ public class TokenContractProperties {
     public void setTotalSupply(BigInteger totalSupply) {
         this.totalSupply = totalSupply;
     }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
 }
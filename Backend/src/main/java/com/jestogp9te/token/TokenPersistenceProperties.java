@@ -0,0 +1,32 @@
+package com.jestogp9te.token;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "token.persistence")
+public class TokenPersistenceProperties {
+
+    // WAL entries written between two ledger snapshots
+    private long snapshotInterval = 100_000;
+
+    // fsync every WAL group commit; without it a crash can lose the last few acknowledged mutations
+    private boolean syncWrites = true;
+
+    // Getters and Setters
+    public long getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(long snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public boolean isSyncWrites() {
+        return syncWrites;
+    }
+
+    public void setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+}
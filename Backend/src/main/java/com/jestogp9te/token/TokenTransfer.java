@@ -0,0 +1,35 @@
+package com.jestogp9te.token;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.math.BigInteger;
+
+// One entry of a batch transfer, written on the wire as a compact ["from", "to", amount] array
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public class TokenTransfer {
+    private final String from;
+    private final String to;
+    private final BigInteger amount;
+
+    @JsonCreator
+    public TokenTransfer(@JsonProperty("from") String from,
+                         @JsonProperty("to") String to,
+                         @JsonProperty("amount") BigInteger amount) {
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public BigInteger getAmount() {
+        return amount;
+    }
+}
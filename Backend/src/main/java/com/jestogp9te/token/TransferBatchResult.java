@@ -0,0 +1,25 @@
+package com.jestogp9te.token;
+
+import java.util.List;
+
+// Outcome of TokenContract.transferBatch: either every entry was applied or none was
+public class TransferBatchResult {
+
+    public enum Status { OK, INVALID_ADDRESS, INVALID_AMOUNT, INSUFFICIENT_BALANCE, NOT_APPLIED }
+
+    private final boolean applied;
+    private final List<Status> results;
+
+    public TransferBatchResult(boolean applied, List<Status> results) {
+        this.applied = applied;
+        this.results = results;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public List<Status> getResults() {
+        return results;
+    }
+}
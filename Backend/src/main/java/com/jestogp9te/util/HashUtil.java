@@ -1,22 +1,66 @@
 package com.jestogp9te.util;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 public class HashUtil {
+
+    public static final int HASH_LENGTH = 32;
+
+    // Hex form of an all-zero hash, used where no parent or Merkle root exists
+    public static final String ZERO_HASH = "0".repeat(HASH_LENGTH * 2);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     public static String sha256(String data) {
+        return toHex(sha256(data.getBytes()));
+    }
+
+    public static byte[] sha256(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    // Hash data into out[0..32) without allocating; the digest is reset afterwards and can be reused
+    public static void sha256(MessageDigest digest, byte[] data, byte[] out) {
+        digest.update(data);
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(data.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if(hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            digest.digest(out, 0, HASH_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
     }
+
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    public static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Hex string must have an even length");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hex string: " + hex);
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
 }
@@ -0,0 +1,41 @@
+package com.jestogp9te.util;
+
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU of decoded public keys, keyed by their Base64 X.509 encoding
+public class PublicKeyCache {
+
+    private final Map<String, PublicKey> keys;
+
+    public PublicKeyCache(int capacity) {
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PublicKey> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public PublicKey get(String base64PublicKey) {
+        PublicKey key;
+        synchronized (keys) {
+            key = keys.get(base64PublicKey);
+        }
+        if (key == null) {
+            // Decode outside the lock; a concurrent miss at worst decodes the same key twice
+            key = WalletUtil.decodePublicKey(base64PublicKey);
+            synchronized (keys) {
+                keys.put(base64PublicKey, key);
+            }
+        }
+        return key;
+    }
+
+    public int size() {
+        synchronized (keys) {
+            return keys.size();
+        }
+    }
+}
@@ -6,6 +6,24 @@ import java.util.Base64;
 
 public class WalletUtil {
 
+    // Signature and KeyFactory instances are expensive to look up and not thread-safe,
+    // so each thread keeps its own and re-initializes it per operation
+    private static final ThreadLocal<Signature> SIGNATURES = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance("SHA256withECDSA");
+        } catch (NoSuchAlgorithmException e) {
+            throw new WalletUtilException("ECDSA is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<KeyFactory> KEY_FACTORIES = ThreadLocal.withInitial(() -> {
+        try {
+            return KeyFactory.getInstance("EC");
+        } catch (NoSuchAlgorithmException e) {
+            throw new WalletUtilException("EC key factory is not available", e);
+        }
+    });
+
     // Private constructor to prevent instantiation
     private WalletUtil() {
         throw new UnsupportedOperationException("WalletUtil is a utility class and cannot be instantiated");
@@ -27,7 +45,7 @@ public class WalletUtil {
 
     public static byte[] sign(PrivateKey privateKey, String data) {
         try {
-            Signature dsa = Signature.getInstance("SHA256withECDSA");
+            Signature dsa = SIGNATURES.get();
             dsa.initSign(privateKey);
             dsa.update(data.getBytes());
             return dsa.sign();
@@ -43,7 +61,7 @@ public class WalletUtil {
 
     public static boolean verify(PublicKey publicKey, String data, byte[] signature) {
         try {
-            Signature sig = Signature.getInstance("SHA256withECDSA");
+            Signature sig = SIGNATURES.get();
             sig.initVerify(publicKey);
             sig.update(data.getBytes());
             return sig.verify(signature);
@@ -52,13 +70,18 @@ public class WalletUtil {
         }
     }
 
-    public static boolean verifySignature(String base64PublicKey, String data, String base64Signature) {
+    public static PublicKey decodePublicKey(String base64PublicKey) {
         try {
             byte[] publicKeyBytes = Base64.getDecoder().decode(base64PublicKey);
-            KeyFactory keyFactory = KeyFactory.getInstance("EC");
-            X509EncodedKeySpec pubKeySpec = new X509EncodedKeySpec(publicKeyBytes);
-            PublicKey publicKey = keyFactory.generatePublic(pubKeySpec);
+            return KEY_FACTORIES.get().generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+        } catch (Exception e) {
+            throw new WalletUtilException("Invalid public key", e);
+        }
+    }
 
+    public static boolean verifySignature(String base64PublicKey, String data, String base64Signature) {
+        try {
+            PublicKey publicKey = decodePublicKey(base64PublicKey);
             byte[] signatureBytes = Base64.getDecoder().decode(base64Signature);
 
             return verify(publicKey, data, signatureBytes);
@@ -1,7 +1,7 @@
 // frontend/pages/Token.jsx
 import React, { useState, useEffect } from 'react';
 import { getTokenBalance, mintToken, transferToken } from '../src/api/token';
-import { getWalletAddress } from '../src/api/wallet';
+import { getStoredAddress } from '../src/api/wallet';
 
 const Tokens = () => {
   const [currentAddress, setCurrentAddress] = useState('');
@@ -18,7 +18,8 @@ const Tokens = () => {
 
   const loadTokenData = async () => {
     try {
-      const address = await getWalletAddress();
+      const address = getStoredAddress();
+      if (!address) return;
       setCurrentAddress(address);
       setMintForm(prev => ({ ...prev, to: address }));
       setTransferForm(prev => ({ ...prev, from: address }));
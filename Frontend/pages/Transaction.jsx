@@ -2,7 +2,7 @@
 import React, { useState, useEffect } from 'react';
 import { createTransaction, getPendingTransactions } from '../src/api/transaction';
 import { getAllTransactions } from '../src/api/blockchain';
-import { getWalletAddress } from '../src/api/wallet';
+import { getStoredAddress } from '../src/api/wallet';
 
 const Transaction = () => {
   const [formData, setFormData] = useState({
@@ -23,9 +23,11 @@ const Transaction = () => {
   const loadData = async () => {
     try {
       // Get current wallet address
-      const address = await getWalletAddress();
-      setCurrentAddress(address);
-      setFormData(prev => ({ ...prev, sender: address }));
+      const address = getStoredAddress();
+      if (address) {
+        setCurrentAddress(address);
+        setFormData(prev => ({ ...prev, sender: address }));
+      }
 
       // Load transactions
       const [pending, all] = await Promise.all([
@@ -1,6 +1,6 @@
 // frontend/pages/Wallet.jsx
 import React, { useState, useEffect } from 'react';
-import { createWallet, getWalletAddress, signData as signDataFunction, verifySignature } from '../src/api/wallet';
+import { createWallet, getStoredAddress, getWalletAddress, signData as signDataFunction, verifySignature } from '../src/api/wallet';
 import { getTokenBalance } from '../src/api/token';
 import { getAllTransactions } from '../src/api/blockchain';
 
@@ -20,7 +20,10 @@ const Wallet = () => {
 
   const loadWalletData = async () => {
     try {
-      const address = await getWalletAddress();
+      const storedAddress = getStoredAddress();
+      if (!storedAddress) return;
+
+      const { address } = await getWalletAddress(storedAddress);
       if (address) {
         setWallet({ address });
         
@@ -64,8 +67,8 @@ const Wallet = () => {
     if (!signData.trim()) return;
     
     try {
-      const signatureResult = await signDataFunction(signData);
-      setSignature(signatureResult);
+      const signatureResult = await signDataFunction(signData, wallet.address);
+      setSignature(signatureResult.signature);
     } catch (error) {
       console.error('Error signing data:', error);
     }
@@ -1,6 +1,36 @@
 import api from './axios';
 
-export const mineBlock = async () => {
-  const response = await api.post('/mining/mine');
+const FINISHED = ['COMPLETED', 'CANCELLED', 'FAILED'];
+
+export const submitMiningJob = async (blocks = 1) => {
+  const response = await api.post('/mining/jobs', null, { params: { blocks } });
+  return response.data;
+};
+
+export const getMiningJob = async (id) => {
+  const response = await api.get(`/mining/jobs/${id}`);
+  return response.data;
+};
+
+export const cancelMiningJob = async (id) => {
+  const response = await api.delete(`/mining/jobs/${id}`);
+  return response.data;
+};
+
+export const getMiningStatus = async () => {
+  const response = await api.get('/mining/status');
   return response.data;
-};
\ No newline at end of file
+};
+
+// Mining runs in the background on the node; poll the job until it has finished
+export const mineBlock = async (pollMs = 500) => {
+  let job = await submitMiningJob(1);
+  while (!FINISHED.includes(job.status)) {
+    await new Promise((resolve) => setTimeout(resolve, pollMs));
+    job = await getMiningJob(job.id);
+  }
+  if (job.status !== 'COMPLETED') {
+    throw new Error(job.error || `Mining job ${job.status.toLowerCase()}`);
+  }
+  return job;
+};
@@ -1,17 +1,23 @@
 import api from './axios';
 
+// The server keeps no per-client wallet, so the browser remembers the one it created
+const ADDRESS_KEY = 'walletAddress';
+
+export const getStoredAddress = () => localStorage.getItem(ADDRESS_KEY);
+
 export const createWallet = async () => {
   const response = await api.get('/wallet/new');
+  localStorage.setItem(ADDRESS_KEY, response.data.address);
   return response.data;
 };
 
-export const getWalletAddress = async () => {
-  const response = await api.get('/wallet/address');
+export const getWalletAddress = async (address) => {
+  const response = await api.get('/wallet/address', { params: { address } });
   return response.data;
 };
 
-export const signData = async (data) => {
-  const response = await api.post('/wallet/sign', data);
+export const signData = async (data, address) => {
+  const response = await api.post('/wallet/sign', data, { params: { address } });
   return response.data;
 };
 